@@ -2,11 +2,13 @@ package com.recipeapp;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main runner
  */
 @SpringBootApplication
+@EnableScheduling
 public class Application {
 
   public static void main(String[] args) {
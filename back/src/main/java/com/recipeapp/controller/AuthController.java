@@ -4,14 +4,15 @@ import com.recipeapp.dto.AuthRequest;
 import com.recipeapp.dto.AuthResponse;
 import com.recipeapp.dto.RegisterRequest;
 import com.recipeapp.entity.User;
+import com.recipeapp.security.AccountDetails;
+import com.recipeapp.security.ActiveUserCache;
 import com.recipeapp.security.JwtService;
+import com.recipeapp.service.LastLoginRecorder;
 import com.recipeapp.service.UserService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -20,9 +21,10 @@ import org.springframework.web.bind.annotation.*;
 public class AuthController {
     
     private final AuthenticationManager authenticationManager;
-    private final UserDetailsService userDetailsService;
     private final JwtService jwtService;
     private final UserService userService;
+    private final ActiveUserCache activeUserCache;
+    private final LastLoginRecorder lastLoginRecorder;
     
     @PostMapping("/register")
     public ResponseEntity<AuthResponse> register(@RequestBody RegisterRequest request) {
@@ -33,25 +35,25 @@ public class AuthController {
             User.UserRole.USER
         );
         
-        UserDetails userDetails = userDetailsService.loadUserByUsername(user.getEmail());
-        String token = jwtService.generateToken(userDetails);
+        activeUserCache.put(user.getId(), true);
+        String token = jwtService.generateToken(user);
         
         return ResponseEntity.ok(new AuthResponse(token, user.getId(), user.getEmail(), user.getUsername(), user.getRole().name()));
     }
     
     @PostMapping("/login")
     public ResponseEntity<AuthResponse> login(@RequestBody AuthRequest request) {
-        authenticationManager.authenticate(
+        // The only read of the user: everything below comes from the authenticated account
+        AccountDetails account = (AccountDetails) authenticationManager.authenticate(
             new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
-        );
-        
-        User user = userService.getUserByEmail(request.getEmail());
-        userService.updateLastLogin(user.getId());
+        ).getPrincipal();
         
-        UserDetails userDetails = userDetailsService.loadUserByUsername(request.getEmail());
-        String token = jwtService.generateToken(userDetails);
+        lastLoginRecorder.record(account.getId());
+        // Authentication just rejected inactive accounts, so the status is known
+        activeUserCache.put(account.getId(), true);
+        String token = jwtService.generateToken(account.toPrincipal());
         
-        return ResponseEntity.ok(new AuthResponse(token, user.getId(), user.getEmail(), user.getUsername(), user.getRole().name()));
+        return ResponseEntity.ok(new AuthResponse(token, account.getId(), account.getUsername(), account.getDisplayName(), account.getRole().name()));
     }
     
     @PostMapping("/reset-password")
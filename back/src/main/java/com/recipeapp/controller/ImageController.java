@@ -0,0 +1,183 @@
+package com.recipeapp.controller;
+
+import com.recipeapp.entity.ImageSize;
+import com.recipeapp.service.ImageStorage;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Image content by content address. An address names its bytes forever, so responses
+ * are cacheable for a year without revalidation, and the address is the ETag.
+ *
+ * <p>On Tomcat the file is handed to the connector, which sends it with sendfile once
+ * the headers are out, without copying it through user space (see
+ * ImageTransferBenchmark). Small files, and containers without sendfile, get a
+ * {@link FileChannel#transferTo} to the response stream, through a bounded buffer.
+ * Single byte ranges are answered with 206, several ranges with the whole content,
+ * which RFC 9110 allows.</p>
+ *
+ * <p>Derivatives are served the same way under {@code /{hash}/{size}}; until one is
+ * rendered, or for a size outside the image type's profile, the request is redirected
+ * to the original, without caching the redirect.</p>
+ */
+@RestController
+@RequestMapping("/api/images")
+public class ImageController {
+    
+    static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+    
+    private final ImageStorage imageStorage;
+    private final long sendfileThreshold;
+    
+    public ImageController(ImageStorage imageStorage,
+                           @Value("${images.serving.sendfile-threshold:48KB}") DataSize sendfileThreshold) {
+        this.imageStorage = imageStorage;
+        this.sendfileThreshold = sendfileThreshold.toBytes();
+    }
+    
+    @GetMapping("/{hash}")
+    public void getImage(@PathVariable String hash, WebRequest webRequest,
+                         HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (!ImageStorage.isAddress(hash)) {
+            throw new RuntimeException("Image not found");
+        }
+        Path path = imageStorage.resolve(hash);
+        String contentType;
+        try {
+            contentType = imageStorage.contentTypeOf(hash);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Image not found");
+        }
+        serve(path, "\"" + hash + "\"", contentType, webRequest, request, response);
+    }
+    
+    @GetMapping("/{hash}/{size}")
+    public void getDerivative(@PathVariable String hash, @PathVariable("size") String sizeKey, WebRequest webRequest,
+                              HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ImageSize size = ImageSize.fromKey(sizeKey);
+        if (!ImageStorage.isAddress(hash) || size == null) {
+            throw new RuntimeException("Image not found");
+        }
+        Path path = imageStorage.resolveDerivative(hash, size);
+        if (!Files.exists(path)) {
+            if (!Files.exists(imageStorage.resolve(hash))) {
+                throw new RuntimeException("Image not found");
+            }
+            response.setStatus(HttpStatus.TEMPORARY_REDIRECT.value());
+            response.setHeader(HttpHeaders.LOCATION, request.getContextPath() + "/api/images/" + hash);
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+            return;
+        }
+        serve(path, "\"" + hash + "-" + size.key() + "\"", "image/jpeg", webRequest, request, response);
+    }
+    
+    private void serve(Path path, String etag, String contentType, WebRequest webRequest,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        long length;
+        try {
+            length = Files.size(path);
+        } catch (NoSuchFileException e) {
+            throw new RuntimeException("Image not found");
+        }
+        
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (webRequest.checkNotModified(etag)) {
+            return;
+        }
+        response.setContentType(contentType);
+        
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // A range of other content than the client's copy would corrupt it: send it all
+        if (rangeHeader != null && (ifRange == null || ifRange.trim().equals(etag))) {
+            HttpRange range = singleRange(rangeHeader);
+            if (range != null) {
+                try {
+                    start = range.getRangeStart(length);
+                    end = range.getRangeEnd(length);
+                } catch (IllegalArgumentException e) {
+                    start = length;
+                }
+                if (start > end || start >= length) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (count == 0 || "HEAD".equals(request.getMethod())) {
+            return;
+        }
+        transfer(path, start, count, request, response);
+    }
+    
+    private void transfer(Path path, long start, long count, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (count >= sendfileThreshold && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            // Tomcat writes the file itself after this method returns; nothing may be written here
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+        
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long end = start + count;
+            while (position < end) {
+                long transferred = file.transferTo(position, end - position, target);
+                if (transferred <= 0) {
+                    throw new EOFException("Image " + path.getFileName() + " is shorter than its announced length");
+                }
+                position += transferred;
+            }
+        }
+    }
+    
+    /**
+     * The range of a Range header asking for exactly one, or null when the header is to
+     * be ignored: malformed, or asking for several.
+     */
+    private static HttpRange singleRange(String rangeHeader) {
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
\ No newline at end of file
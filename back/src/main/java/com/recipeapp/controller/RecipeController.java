@@ -1,16 +1,56 @@
 package com.recipeapp.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.recipeapp.dto.AutocompleteResponse;
+import com.recipeapp.dto.CommentRequest;
+import com.recipeapp.dto.CommentResponse;
+import com.recipeapp.dto.FacetedSearchResponse;
+import com.recipeapp.dto.ImageResponse;
+import com.recipeapp.dto.ImportReport;
+import com.recipeapp.dto.IngredientMatch;
+import com.recipeapp.dto.PageResponse;
+import com.recipeapp.dto.PantrySearchResult;
 import com.recipeapp.dto.RecipeRequest;
 import com.recipeapp.dto.RecipeResponse;
+import com.recipeapp.dto.RecipeSearchCriteria;
+import com.recipeapp.dto.RecipeSummary;
+import com.recipeapp.dto.RecipeView;
+import com.recipeapp.dto.TextSearchResult;
+import com.recipeapp.entity.Image;
 import com.recipeapp.entity.Recipe;
-import com.recipeapp.entity.User;
+import com.recipeapp.security.AuthenticatedUser;
+import com.recipeapp.service.ImageService;
+import com.recipeapp.service.PageCursor;
+import com.recipeapp.service.RecipeCommentService;
+import com.recipeapp.service.RecipeImportService;
+import com.recipeapp.service.RecipeResponseCache;
 import com.recipeapp.service.RecipeService;
-import com.recipeapp.service.UserService;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 import java.util.stream.Collectors;
 
 @RestController
@@ -18,84 +58,335 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class RecipeController {
     
+    private static final String MERGE_PATCH_JSON = "application/merge-patch+json";
+    
     private final RecipeService recipeService;
-    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final RecipeResponseCache recipeResponseCache;
+    private final RecipeImportService recipeImportService;
+    private final RecipeCommentService recipeCommentService;
+    private final ImageService imageService;
+    private final Validator validator;
     
     @GetMapping("/public")
-    public ResponseEntity<List<RecipeResponse>> getAllPublicRecipes() {
-        List<Recipe> recipes = recipeService.getAllActiveRecipes();
-        return ResponseEntity.ok(recipes.stream().map(this::toResponse).collect(Collectors.toList()));
+    public ResponseEntity<?> getAllPublicRecipes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "false") boolean unpaged,
+            @RequestParam(defaultValue = "FULL") RecipeView view,
+            WebRequest webRequest) {
+        return listActiveRecipes(cursor, limit, unpaged, view, webRequest);
     }
     
     @GetMapping
-    public ResponseEntity<List<RecipeResponse>> getAllRecipes(Authentication authentication) {
-        List<Recipe> recipes = recipeService.getAllActiveRecipes();
-        return ResponseEntity.ok(recipes.stream().map(this::toResponse).collect(Collectors.toList()));
+    public ResponseEntity<?> getAllRecipes(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int limit,
+            @RequestParam(defaultValue = "false") boolean unpaged,
+            @RequestParam(defaultValue = "FULL") RecipeView view,
+            WebRequest webRequest,
+            Authentication authentication) {
+        return listActiveRecipes(cursor, limit, unpaged, view, webRequest);
+    }
+    
+    /**
+     * Streams the active catalog as newline-delimited JSON, gzip-compressed when the
+     * client accepts it. Rows are written as they are scrolled, never collected.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public void exportRecipes(@RequestParam(required = false) Recipe.Language language,
+                              @RequestParam(required = false) Recipe.RecipeType recipeType,
+                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                              HttpServletResponse response) throws IOException {
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        
+        ObjectWriter writer = objectMapper.writerFor(RecipeResponse.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        OutputStream out = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192) : response.getOutputStream();
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            recipeService.forEachActiveRecipe(language, recipeType, recipe -> {
+                try {
+                    writer.writeValue(generator, toResponse(recipe));
+                    generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<RecipeResponse> getRecipeById(@PathVariable String id) {
-        Recipe recipe = recipeService.getRecipeById(id);
-        return ResponseEntity.ok(toResponse(recipe));
+    public ResponseEntity<RecipeResponse> getRecipeById(@PathVariable String id, WebRequest webRequest) {
+        RecipeResponse response = recipeResponseCache.getIfPresent(id);
+        if (response == null && webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            // Revalidate from the version alone before loading the recipe
+            Optional<Long> version = recipeService.getRecipeVersion(id);
+            if (version.isPresent() && webRequest.checkNotModified(RecipeETags.strong(version.get()))) {
+                return null;
+            }
+        }
+        if (response == null) {
+            response = recipeResponseCache.get(id, key -> toResponse(recipeService.getRecipeById(key)));
+        }
+        
+        if (webRequest.checkNotModified(RecipeETags.strong(response.getVersion()),
+                RecipeETags.lastModified(response.getUpdatedAt()))) {
+            return null;
+        }
+        return ResponseEntity.ok(response);
     }
     
     @GetMapping("/my-recipes")
-    public ResponseEntity<List<RecipeResponse>> getMyRecipes(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
-        List<Recipe> recipes = recipeService.getRecipesByUser(user.getId());
+    public ResponseEntity<List<?>> getMyRecipes(@RequestParam(defaultValue = "FULL") RecipeView view,
+                                                @AuthenticationPrincipal AuthenticatedUser user) {
+        if (view == RecipeView.SUMMARY) {
+            return ResponseEntity.ok(recipeService.getRecipeSummariesByUser(user.id()));
+        }
+        List<Recipe> recipes = recipeService.getRecipesByUser(user.id());
         return ResponseEntity.ok(recipes.stream().map(this::toResponse).collect(Collectors.toList()));
     }
     
     @PostMapping
-    public ResponseEntity<RecipeResponse> createRecipe(@RequestBody RecipeRequest request, Authentication authentication) {
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
-        
+    public ResponseEntity<RecipeResponse> createRecipe(@RequestBody RecipeRequest request,
+                                                       @AuthenticationPrincipal AuthenticatedUser user) {
         Recipe recipe = toEntity(request);
-        Recipe savedRecipe = recipeService.createRecipe(recipe, user.getId());
+        Recipe savedRecipe = recipeService.createRecipe(recipe, user.id());
         return ResponseEntity.ok(toResponse(savedRecipe));
     }
     
+    /**
+     * Creates recipes in bulk from a JSON array or newline-delimited JSON, read as a
+     * stream. Invalid records are reported and skipped, the others are imported.
+     */
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<ImportReport> importRecipes(InputStream body, @AuthenticationPrincipal AuthenticatedUser user)
+            throws IOException {
+        // A root-level array is iterated element by element, like a sequence of documents
+        try (MappingIterator<RecipeRequest> records = objectMapper.readerFor(RecipeRequest.class).readValues(body)) {
+            return ResponseEntity.ok(recipeImportService.importRecipes(records, this::toEntity, user.id()));
+        }
+    }
+    
     @PutMapping("/{id}")
-    public ResponseEntity<RecipeResponse> updateRecipe(@PathVariable String id, @RequestBody RecipeRequest request, Authentication authentication) {
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
-        
+    public ResponseEntity<RecipeResponse> updateRecipe(@PathVariable String id, @RequestBody RecipeRequest request,
+                                                       @AuthenticationPrincipal AuthenticatedUser user) {
         Recipe recipe = toEntity(request);
-        Recipe updatedRecipe = recipeService.updateRecipe(id, recipe, user.getId());
+        Recipe updatedRecipe = recipeService.updateRecipe(id, recipe, user.id());
         return ResponseEntity.ok(toResponse(updatedRecipe));
     }
     
+    /**
+     * Partial update with JSON Merge Patch (RFC 7386): members present in the document
+     * replace the current values, null clears them, and absent ones are left alone.
+     * Sending the recipe's ETag as If-Match turns a change made since into a 412.
+     */
+    @PatchMapping(value = "/{id}", consumes = {MERGE_PATCH_JSON, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<RecipeResponse> patchRecipe(@PathVariable String id, @RequestBody JsonNode patch,
+                                                      @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                                      @AuthenticationPrincipal AuthenticatedUser user) {
+        if (!patch.isObject()) {
+            throw new RuntimeException("Invalid recipe: a merge patch must be a JSON object");
+        }
+        Recipe patchedRecipe = recipeService.patchRecipe(id, RecipeETags.ifMatchVersion(ifMatch),
+            recipe -> copyToEntity(mergePatch(toRequest(recipe), patch), recipe), user.id());
+        return ResponseEntity.ok()
+            .eTag(RecipeETags.strong(patchedRecipe.getVersion()))
+            .body(toResponse(patchedRecipe));
+    }
+    
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteRecipe(@PathVariable String id, Authentication authentication) {
-        String email = authentication.getName();
-        User user = userService.getUserByEmail(email);
-        
-        recipeService.deleteRecipe(id, user.getId());
+    public ResponseEntity<Void> deleteRecipe(@PathVariable String id, @AuthenticationPrincipal AuthenticatedUser user) {
+        recipeService.deleteRecipe(id, user.id());
         return ResponseEntity.noContent().build();
     }
     
+    @GetMapping("/{id}/comments")
+    public ResponseEntity<PageResponse<CommentResponse>> getComments(
+            @PathVariable String id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(recipeCommentService.getComments(id, cursor, limit));
+    }
+    
+    @PostMapping("/{id}/comments")
+    public ResponseEntity<CommentResponse> addComment(@PathVariable String id, @RequestBody CommentRequest request,
+                                                      @AuthenticationPrincipal AuthenticatedUser user) {
+        return ResponseEntity.ok(recipeCommentService.addComment(id, request.getBody(), user.id()));
+    }
+    
+    @GetMapping("/{id}/images")
+    public ResponseEntity<List<ImageResponse>> getImages(@PathVariable String id) {
+        return ResponseEntity.ok(imageService.getImages(id));
+    }
+    
+    /**
+     * Attaches an uploaded image to the recipe. The part is streamed from the container's
+     * spool file into the image store, so its size does not weigh on the heap.
+     */
+    @PostMapping(value = "/{id}/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImageResponse> addImage(@PathVariable String id,
+                                                  @RequestParam("file") MultipartFile file,
+                                                  @RequestParam(required = false) String displayName,
+                                                  @RequestParam(defaultValue = "PRIVATE") Image.ImageType imageType,
+                                                  @AuthenticationPrincipal AuthenticatedUser user) throws IOException {
+        try (InputStream content = file.getInputStream()) {
+            return ResponseEntity.ok(imageService.addImage(id, content, file.getOriginalFilename(), displayName,
+                imageType, user.id()));
+        }
+    }
+    
+    @GetMapping("/search")
+    public ResponseEntity<FacetedSearchResponse> search(RecipeSearchCriteria criteria,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(recipeService.search(criteria, cursor, limit));
+    }
+    
+    @GetMapping("/autocomplete")
+    public ResponseEntity<AutocompleteResponse> autocomplete(@RequestParam String prefix,
+                                                             @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(recipeService.autocomplete(prefix, limit));
+    }
+    
     @GetMapping("/search/name")
-    public ResponseEntity<List<RecipeResponse>> searchByName(@RequestParam String keyword) {
-        List<Recipe> recipes = recipeService.searchByName(keyword);
+    public ResponseEntity<List<?>> searchByName(@RequestParam String keyword,
+                                                @RequestParam(defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int limit,
+                                                @RequestParam(defaultValue = "FULL") RecipeView view,
+                                                @RequestParam(defaultValue = "false") boolean fuzzy) {
+        if (view == RecipeView.SUMMARY) {
+            return ResponseEntity.ok(recipeService.searchSummariesByName(keyword, limit, fuzzy));
+        }
+        List<Recipe> recipes = recipeService.searchByName(keyword, limit, fuzzy);
         return ResponseEntity.ok(recipes.stream().map(this::toResponse).collect(Collectors.toList()));
     }
     
     @GetMapping("/search/ingredient")
-    public ResponseEntity<List<RecipeResponse>> searchByIngredient(@RequestParam String ingredient) {
-        List<Recipe> recipes = recipeService.searchByIngredient(ingredient);
+    public ResponseEntity<List<?>> searchByIngredient(@RequestParam List<String> ingredient,
+                                                      @RequestParam(defaultValue = "ANY") IngredientMatch match,
+                                                      @RequestParam(defaultValue = "FULL") RecipeView view) {
+        if (view == RecipeView.SUMMARY) {
+            return ResponseEntity.ok(recipeService.searchSummariesByIngredients(ingredient, match));
+        }
+        List<Recipe> recipes = recipeService.searchByIngredients(ingredient, match);
         return ResponseEntity.ok(recipes.stream().map(this::toResponse).collect(Collectors.toList()));
     }
     
+    @GetMapping("/search/text")
+    public ResponseEntity<List<TextSearchResult>> searchText(@RequestParam String q,
+                                                             @RequestParam(required = false) Recipe.Language language,
+                                                             @RequestParam(defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(recipeService.searchText(q, language, limit));
+    }
+    
+    @GetMapping("/search/pantry")
+    public ResponseEntity<List<PantrySearchResult>> searchByPantry(@RequestParam List<String> ingredient,
+                                                                   @RequestParam(defaultValue = "2") int maxMissing,
+                                                                   @RequestParam(defaultValue = "" + PageCursor.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(recipeService.searchByPantry(ingredient, maxMissing, limit));
+    }
+    
     @GetMapping("/search/type")
-    public ResponseEntity<List<RecipeResponse>> searchByType(@RequestParam Recipe.RecipeType type) {
+    public ResponseEntity<List<?>> searchByType(@RequestParam Recipe.RecipeType type,
+                                                @RequestParam(defaultValue = "FULL") RecipeView view) {
+        if (view == RecipeView.SUMMARY) {
+            return ResponseEntity.ok(recipeService.searchSummariesByType(type));
+        }
         List<Recipe> recipes = recipeService.searchByType(type);
         return ResponseEntity.ok(recipes.stream().map(this::toResponse).collect(Collectors.toList()));
     }
     
+    /**
+     * Pages carry a weak ETag over the (id, updatedAt) pairs of their items, plus the
+     * comment counts in the summary view, the only one showing them. When the client
+     * revalidates, the light summary page is computed first and a match is answered
+     * with 304 before any full recipe is loaded or serialized.
+     *
+     * <p>{@code unpaged=true} keeps the listing's original contract: every active recipe,
+     * as a plain array.</p>
+     */
+    private ResponseEntity<?> listActiveRecipes(String cursor, int limit, boolean unpaged,
+                                                RecipeView view, WebRequest webRequest) {
+        if (unpaged) {
+            List<Recipe> recipes = recipeService.getAllActiveRecipes();
+            return ResponseEntity.ok(recipes.stream().map(this::toResponse).collect(Collectors.toList()));
+        }
+        
+        if (view == RecipeView.SUMMARY || webRequest.getHeader(HttpHeaders.IF_NONE_MATCH) != null) {
+            PageResponse<RecipeSummary> summaries = recipeService.getActiveRecipeSummariesPage(cursor, limit);
+            String etag = view == RecipeView.SUMMARY
+                ? RecipeETags.weak(summaries, RecipeSummary::getId, RecipeSummary::getUpdatedAt, RecipeSummary::getCommentCount)
+                : RecipeETags.weak(summaries, RecipeSummary::getId, RecipeSummary::getUpdatedAt);
+            if (webRequest.checkNotModified(etag)) {
+                return null;
+            }
+            if (view == RecipeView.SUMMARY) {
+                return ResponseEntity.ok(summaries);
+            }
+            return ResponseEntity.ok(toResponsePage(recipeService.getActiveRecipesPage(cursor, limit)));
+        }
+        
+        PageResponse<RecipeResponse> page = toResponsePage(recipeService.getActiveRecipesPage(cursor, limit));
+        webRequest.checkNotModified(RecipeETags.weak(page, RecipeResponse::getId, RecipeResponse::getUpdatedAt));
+        return ResponseEntity.ok(page);
+    }
+    
+    private PageResponse<RecipeResponse> toResponsePage(PageResponse<Recipe> page) {
+        return new PageResponse<>(page.getItems().stream().map(this::toResponse).collect(Collectors.toList()), page.getNext());
+    }
+    
+    private RecipeRequest mergePatch(RecipeRequest current, JsonNode patch) {
+        RecipeRequest merged;
+        try {
+            // Top-level members replace the current values whole, lists included
+            merged = objectMapper.readerForUpdating(current)
+                .with(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .readValue(patch);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid recipe: " + e.getMessage(), e);
+        }
+        Set<ConstraintViolation<RecipeRequest>> violations = validator.validate(merged);
+        if (!violations.isEmpty()) {
+            throw new RuntimeException("Invalid recipe: " + violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", ")));
+        }
+        if (merged.getLanguage() == null) {
+            merged.setLanguage(Recipe.Language.EN);
+        }
+        return merged;
+    }
+    
+    private RecipeRequest toRequest(Recipe recipe) {
+        return new RecipeRequest(
+            recipe.getName(),
+            recipe.getIngredientsList(),
+            recipe.getTemperature(),
+            recipe.getCookingTime(),
+            recipe.getInstructions(),
+            recipe.getRecipeType(),
+            recipe.getCreatorRating(),
+            recipe.getCreatorComment(),
+            recipe.getExternalLinks(),
+            recipe.getLanguage()
+        );
+    }
+    
     private Recipe toEntity(RecipeRequest req) {
         Recipe recipe = new Recipe();
+        copyToEntity(req, recipe);
+        return recipe;
+    }
+    
+    // Setting an unchanged value leaves the column clean, so it stays out of the UPDATE
+    private void copyToEntity(RecipeRequest req, Recipe recipe) {
         recipe.setName(req.getName());
         recipe.setIngredientsList(req.getIngredientsList());
         recipe.setTemperature(req.getTemperature());
@@ -106,7 +397,6 @@ public class RecipeController {
         recipe.setCreatorComment(req.getCreatorComment());
         recipe.setExternalLinks(req.getExternalLinks());
         recipe.setLanguage(req.getLanguage());
-        return recipe;
     }
     
     private RecipeResponse toResponse(Recipe recipe) {
@@ -122,7 +412,9 @@ public class RecipeController {
             recipe.getCreatorComment(),
             recipe.getExternalLinks(),
             recipe.getLanguage(),
-            recipe.getUser().getUsername()
+            recipe.getUser().getUsername(),
+            recipe.getUpdatedAt(),
+            recipe.getVersion()
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+package com.recipeapp.controller;
+
+import com.recipeapp.dto.PageResponse;
+import org.springframework.util.DigestUtils;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.function.Function;
+
+/**
+ * ETag and Last-Modified values derived from recipe versions and update timestamps,
+ * so that revalidation only needs ids and versions, never the rendered payload.
+ */
+final class RecipeETags {
+    
+    private RecipeETags() {
+    }
+    
+    static long lastModified(LocalDateTime updatedAt) {
+        return updatedAt == null ? -1 : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+    
+    static String strong(Long version) {
+        return "\"" + (version == null ? 0 : version) + "\"";
+    }
+    
+    /**
+     * The version an If-Match header asks for: null for {@code *} or no header,
+     * -1 for anything that cannot match a strong tag of ours, weak tags included.
+     */
+    static Long ifMatchVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(tag.substring(1, tag.length() - 1));
+        } catch (NumberFormatException e) {
+            return -1L;
+        }
+    }
+    
+    static <T> String weak(PageResponse<T> page, Function<T, String> id, Function<T, LocalDateTime> updatedAt) {
+        return weak(page, id, updatedAt, item -> null);
+    }
+    
+    /**
+     * Same, with a value shown on the page that changes without touching updatedAt.
+     */
+    static <T> String weak(PageResponse<T> page, Function<T, String> id, Function<T, LocalDateTime> updatedAt,
+                           Function<T, ?> extra) {
+        StringBuilder versions = new StringBuilder();
+        for (T item : page.getItems()) {
+            versions.append(id.apply(item)).append(':').append(lastModified(updatedAt.apply(item)));
+            Object value = extra.apply(item);
+            if (value != null) {
+                versions.append(':').append(value);
+            }
+            versions.append(';');
+        }
+        versions.append(page.getNext());
+        return "W/\"" + DigestUtils.md5DigestAsHex(versions.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
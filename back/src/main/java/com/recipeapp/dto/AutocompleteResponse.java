@@ -0,0 +1,15 @@
+package com.recipeapp.dto;
+
+import com.recipeapp.search.Suggestion;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AutocompleteResponse {
+    private List<Suggestion> recipes;
+    private List<Suggestion> ingredients;
+}
\ No newline at end of file
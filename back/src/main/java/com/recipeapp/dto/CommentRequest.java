@@ -0,0 +1,12 @@
+package com.recipeapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentRequest {
+    private String body;
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.recipeapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CommentResponse {
+    private String id;
+    private String authorUsername; // Null for comments migrated without a known author
+    private String body;
+    private LocalDateTime createdAt;
+}
\ No newline at end of file
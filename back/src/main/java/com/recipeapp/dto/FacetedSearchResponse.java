@@ -0,0 +1,23 @@
+package com.recipeapp.dto;
+
+import com.recipeapp.entity.Recipe;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of the combined search with its facets. Each facet is counted with every
+ * filter except its own, so the UI can show how many results picking another value
+ * would give.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetedSearchResponse {
+    private List<RecipeSummary> items;
+    private String next; // Opaque cursor of the following page, null on the last page
+    private Map<Recipe.RecipeType, Long> recipeTypes;
+    private Map<Recipe.Language, Long> languages;
+}
\ No newline at end of file
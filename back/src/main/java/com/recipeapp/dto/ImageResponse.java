@@ -0,0 +1,22 @@
+package com.recipeapp.dto;
+
+import com.recipeapp.entity.Image;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageResponse {
+    private String id;
+    private String recipeId;
+    private String displayName;
+    private String name;
+    private Image.ImageType imageType;
+    private String contentHash;
+    private String contentType;
+    private Long sizeBytes;
+    private LocalDateTime createdAt;
+}
\ No newline at end of file
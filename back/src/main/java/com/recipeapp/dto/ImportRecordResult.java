@@ -0,0 +1,20 @@
+package com.recipeapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportRecordResult {
+    private Integer index; // Zero-based position in the input
+    private Status status;
+    private String id; // Id of the created recipe, null unless IMPORTED
+    private List<String> errors;
+    
+    public enum Status {
+        IMPORTED, INVALID, FAILED
+    }
+}
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.recipeapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImportReport {
+    private Integer imported;
+    private Integer rejected;
+    private List<ImportRecordResult> records; // One per record read, in input order
+}
\ No newline at end of file
@@ -0,0 +1,9 @@
+package com.recipeapp.dto;
+
+/**
+ * How a multi-ingredient search combines its ingredients. ANY unless the request asks
+ * otherwise, on every endpoint.
+ */
+public enum IngredientMatch {
+    ANY, ALL
+}
@@ -0,0 +1,14 @@
+package com.recipeapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PageResponse<T> {
+    private List<T> items;
+    private String next; // Opaque cursor of the following page, null on the last page
+}
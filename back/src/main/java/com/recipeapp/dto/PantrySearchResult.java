@@ -0,0 +1,16 @@
+package com.recipeapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PantrySearchResult {
+    private RecipeSummary recipe;
+    private Integer matched;
+    private Integer missing;
+    private List<String> missingIngredients; // Normalized names, to add to the shopping list
+}
\ No newline at end of file
@@ -1,6 +1,12 @@
 package com.recipeapp.dto;
 
 import com.recipeapp.entity.Recipe;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -11,12 +17,19 @@ import java.util.Map;
 @AllArgsConstructor
 @NoArgsConstructor
 public class RecipeRequest {
+    @NotBlank
+    @Size(max = 255)
     private String name;
     private List<Map<String, Object>> ingredientsList;
     private Integer temperature;
+    @NotNull
+    @PositiveOrZero
     private Integer cookingTime;
     private String instructions;
+    @NotNull
     private Recipe.RecipeType recipeType;
+    @Min(1)
+    @Max(5)
     private Integer creatorRating;
     private String creatorComment;
     private List<String> externalLinks;
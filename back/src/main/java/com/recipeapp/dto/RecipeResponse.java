@@ -4,6 +4,7 @@ import com.recipeapp.entity.Recipe;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -23,4 +24,6 @@ public class RecipeResponse {
     private List<String> externalLinks;
     private Recipe.Language language;
     private String creatorUsername;
+    private LocalDateTime updatedAt;
+    private Long version;
 }
\ No newline at end of file
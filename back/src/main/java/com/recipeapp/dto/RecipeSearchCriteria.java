@@ -0,0 +1,22 @@
+package com.recipeapp.dto;
+
+import com.recipeapp.entity.Recipe;
+import lombok.Data;
+import java.util.List;
+
+/**
+ * Filters of the combined search endpoint, bound from query parameters.
+ * Every filter is optional and they are combined with AND.
+ */
+@Data
+public class RecipeSearchCriteria {
+    private String keyword; // Substring of the name, case-insensitive
+    private List<String> ingredient;
+    private IngredientMatch match = IngredientMatch.ANY;
+    private Recipe.RecipeType recipeType;
+    private Recipe.Language language;
+    private Integer minCookingTime;
+    private Integer maxCookingTime;
+    private Integer minTemperature;
+    private Integer maxTemperature;
+}
\ No newline at end of file
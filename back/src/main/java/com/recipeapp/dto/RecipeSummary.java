@@ -0,0 +1,25 @@
+package com.recipeapp.dto;
+
+import com.recipeapp.entity.Recipe;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Browse representation of a recipe. Built straight from a JPQL constructor
+ * expression, so the TEXT and jsonb columns are never read for list pages.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecipeSummary {
+    private String id;
+    private String name;
+    private Recipe.RecipeType recipeType;
+    private Integer cookingTime;
+    private Recipe.Language language;
+    private String creatorUsername;
+    private LocalDateTime updatedAt;
+    private Integer commentCount;
+}
@@ -0,0 +1,8 @@
+package com.recipeapp.dto;
+
+/**
+ * Representation requested by list endpoints through the {@code view} parameter.
+ */
+public enum RecipeView {
+    FULL, SUMMARY
+}
@@ -0,0 +1,14 @@
+package com.recipeapp.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TextSearchResult {
+    private RecipeSummary recipe;
+    private Double rank;
+    private String snippet; // Escaped HTML, matching words wrapped in <b></b>
+}
\ No newline at end of file
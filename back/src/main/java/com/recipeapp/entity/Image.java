@@ -5,7 +5,7 @@ import lombok.Data;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "images")
+@Table(name = "images", indexes = @Index(name = "idx_images_content_hash", columnList = "content_hash"))
 @Data
 public class Image {
     
@@ -20,7 +20,15 @@ public class Image {
     private String name;
     
     @Column(nullable = false)
-    private String attachment; // File path or URL
+    private String attachment; // File path or URL; uploads: their path in the image store
+    
+    // SHA-256 of the uploaded content, stored once however many images share it
+    @Column(length = 64)
+    private String contentHash;
+    
+    private String contentType;
+    
+    private Long sizeBytes;
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false)
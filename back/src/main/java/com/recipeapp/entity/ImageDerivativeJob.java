@@ -0,0 +1,50 @@
+package com.recipeapp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * A derivative to render: one size of one stored content, whichever images share it.
+ * The table is the work queue, so that pending work survives restarts; a RUNNING job
+ * whose claim is older than the lease belongs to a node that died, and is claimed again.
+ */
+@Entity
+@Table(name = "image_derivative_jobs",
+       uniqueConstraints = @UniqueConstraint(name = "uk_image_derivative_jobs_hash_size", columnNames = {"content_hash", "size_key"}),
+       indexes = @Index(name = "idx_image_derivative_jobs_status_id", columnList = "status, id"))
+@Data
+public class ImageDerivativeJob {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 64)
+    private String contentHash;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "size_key", nullable = false, length = 20)
+    private ImageSize size;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+    
+    @Column(nullable = false)
+    private Integer attempts = 0;
+    
+    @Column(length = 1000)
+    private String lastError;
+    
+    private LocalDateTime claimedAt;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime updatedAt;
+    
+    public enum Status {
+        PENDING, RUNNING, DONE, FAILED
+    }
+}
\ No newline at end of file
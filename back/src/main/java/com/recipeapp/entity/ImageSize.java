@@ -0,0 +1,42 @@
+package com.recipeapp.entity;
+
+import java.util.Locale;
+
+/**
+ * Derivative sizes of uploaded images, by the length of their longest edge. Smaller
+ * originals are never scaled up, only re-encoded.
+ */
+public enum ImageSize {
+    THUMB(160),
+    CARD(480),
+    FULL(1600);
+    
+    private final int maxEdge;
+    
+    ImageSize(int maxEdge) {
+        this.maxEdge = maxEdge;
+    }
+    
+    public int getMaxEdge() {
+        return maxEdge;
+    }
+    
+    /**
+     * The lower-case name used in URLs and on disk.
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * The size named by a key, or null for anything else.
+     */
+    public static ImageSize fromKey(String key) {
+        for (ImageSize size : values()) {
+            if (size.key().equals(key)) {
+                return size;
+            }
+        }
+        return null;
+    }
+}
\ No newline at end of file
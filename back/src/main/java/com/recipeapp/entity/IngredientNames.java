@@ -0,0 +1,58 @@
+package com.recipeapp.entity;
+
+import java.text.Normalizer;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Normal form of ingredient names used for lookups: lower case, accents stripped and
+ * whitespace collapsed, so that "Crème  Fraîche" and "creme fraiche" are the same key.
+ */
+public final class IngredientNames {
+    
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    
+    private IngredientNames() {
+    }
+    
+    public static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        String stripped = DIACRITICS.matcher(Normalizer.normalize(name, Normalizer.Form.NFD)).replaceAll("");
+        return WHITESPACE.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+    
+    public static Set<String> normalizeAll(List<Map<String, Object>> ingredientsList) {
+        Set<String> names = new LinkedHashSet<>();
+        if (ingredientsList == null) {
+            return names;
+        }
+        for (Map<String, Object> ingredient : ingredientsList) {
+            Object name = ingredient == null ? null : ingredient.get("name");
+            if (name != null) {
+                String normalized = normalize(name.toString());
+                if (!normalized.isEmpty()) {
+                    names.add(normalized);
+                }
+            }
+        }
+        return names;
+    }
+    
+    public static Set<String> normalizeAll(Iterable<String> names) {
+        Set<String> normalized = new LinkedHashSet<>();
+        for (String name : names) {
+            String value = normalize(name);
+            if (!value.isEmpty()) {
+                normalized.add(value);
+            }
+        }
+        return normalized;
+    }
+}
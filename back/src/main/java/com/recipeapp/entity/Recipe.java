@@ -2,14 +2,19 @@ package com.recipeapp.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.Type;
 import io.hypersistence.utils.hibernate.type.json.JsonType;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Entity
 @Table(name = "recipes")
+@DynamicUpdate
 @Data
 public class Recipe {
     
@@ -24,6 +29,16 @@ public class Recipe {
     @Column(columnDefinition = "jsonb")
     private List<Map<String, Object>> ingredientsList;
     
+    // Normalized copy of the ingredient names for indexed lookups, see setIngredientsList
+    @ElementCollection
+    @CollectionTable(
+        name = "recipe_ingredients",
+        joinColumns = @JoinColumn(name = "recipe_id"),
+        indexes = @Index(name = "idx_recipe_ingredients_name", columnList = "ingredient_name_normalized, recipe_id")
+    )
+    @Column(name = "ingredient_name_normalized", nullable = false)
+    private Set<String> ingredientNames = new HashSet<>();
+    
     private Integer temperature;
     
     @Column(nullable = false)
@@ -45,9 +60,9 @@ public class Recipe {
     @Column(columnDefinition = "TEXT")
     private String creatorComment;
     
-    @Type(JsonType.class)
-    @Column(columnDefinition = "jsonb")
-    private List<Map<String, Object>> userComments = new ArrayList<>();
+    // Denormalized count of recipe_comments, only ever changed by an atomic increment
+    @Column(insertable = false, updatable = false, columnDefinition = "integer default 0 not null")
+    private Integer commentCount = 0;
     
     @Type(JsonType.class)
     @Column(columnDefinition = "jsonb")
@@ -67,6 +82,35 @@ public class Recipe {
     @OneToMany(mappedBy = "recipe", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Image> images = new ArrayList<>();
     
+    // Nullable so that existing rows can be migrated; set on every write from now on
+    @Column(updatable = false)
+    private LocalDateTime createdAt;
+    
+    private LocalDateTime updatedAt;
+    
+    // Optimistic lock: every UPDATE checks and bumps it; the default lets existing rows migrate
+    @Version
+    @Column(columnDefinition = "bigint default 0 not null")
+    private Long version;
+    
+    public void setIngredientsList(List<Map<String, Object>> ingredientsList) {
+        this.ingredientsList = ingredientsList;
+        Set<String> names = IngredientNames.normalizeAll(ingredientsList);
+        this.ingredientNames.retainAll(names);
+        this.ingredientNames.addAll(names);
+    }
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        updatedAt = LocalDateTime.now();
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+    
     public enum RecipeType {
         APPETIZER, STARTER, MAIN, DESSERT, DRINK, OTHER, 
         DRESSING_SAUCE, SPREAD, BREAD, DOUGH
@@ -0,0 +1,39 @@
+package com.recipeapp.entity;
+
+import io.hypersistence.utils.hibernate.type.json.JsonType;
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Type;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One committed recipe write, as the other nodes replay it: which node wrote it and
+ * which recipes changed. Ids come from an identity column, so they are allocated in
+ * insert order, which the change feed relies on.
+ */
+@Entity
+@Table(name = "recipe_changes", indexes = @Index(name = "idx_recipe_changes_created_at", columnList = "created_at"))
+@Data
+public class RecipeChange {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, length = 64)
+    private String originNode;
+    
+    @Type(JsonType.class)
+    @Column(columnDefinition = "jsonb", nullable = false)
+    private List<String> recipeIds = new ArrayList<>();
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.recipeapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * How far a node has applied the change feed.
+ */
+@Entity
+@Table(name = "recipe_change_cursors")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RecipeChangeCursor {
+    
+    @Id
+    @Column(length = 64)
+    private String nodeId;
+    
+    @Column(nullable = false)
+    private Long lastChangeId;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.recipeapp.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import org.hibernate.annotations.Immutable;
+import java.time.LocalDateTime;
+
+/**
+ * A user comment on a recipe. Comments are append-only rows of their own, so posting
+ * one never rewrites the recipe, and they are read newest first by keyset over
+ * (createdAt, id).
+ */
+@Entity
+@Immutable
+@Table(
+    name = "recipe_comments",
+    indexes = @Index(name = "idx_recipe_comments_recipe_created_id", columnList = "recipe_id, created_at, id")
+)
+@Data
+public class RecipeComment {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private String id;
+    
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "recipe_id", nullable = false)
+    private Recipe recipe;
+    
+    // Null for comments migrated from the old jsonb list without a known author
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "author_id")
+    private User author;
+    
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+    
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+}
\ No newline at end of file
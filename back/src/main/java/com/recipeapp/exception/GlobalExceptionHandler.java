@@ -1,11 +1,15 @@
 package com.recipeapp.exception;
 
+import com.recipeapp.security.PasswordHashingUnavailableException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -27,12 +31,66 @@ public class GlobalExceptionHandler {
             error.put("message", ex.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
         }
+        else if (ex.getMessage().contains("Image not found")) {
+            error.put("error", "Image not found");
+            error.put("message", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        else if (ex.getMessage().contains("Invalid cursor")) {
+            error.put("error", "Invalid cursor");
+            error.put("message", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        else if (ex.getMessage().contains("Invalid recipe")) {
+            error.put("error", "Invalid recipe");
+            error.put("message", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        else if (ex.getMessage().contains("Invalid comment")) {
+            error.put("error", "Invalid comment");
+            error.put("message", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        else if (ex.getMessage().contains("Invalid image")) {
+            error.put("error", "Invalid image");
+            error.put("message", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+        }
+        else if (ex.getMessage().contains("Precondition failed")) {
+            error.put("error", "Precondition failed");
+            error.put("message", ex.getMessage());
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(error);
+        }
         
         error.put("error", "Internal server error");
         error.put("message", ex.getMessage());
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
     }
 
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<Map<String, String>> handleOptimisticLockingFailure(ObjectOptimisticLockingFailureException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Conflict");
+        error.put("message", "The resource was modified concurrently, reload it and retry");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<Map<String, String>> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Payload too large");
+        error.put("message", "The upload exceeds the maximum size of " + ex.getMaxUploadSize() + " bytes");
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(error);
+    }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handlePasswordHashingUnavailable(PasswordHashingUnavailableException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Service unavailable");
+        error.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+    }
+
     @ExceptionHandler({AuthenticationException.class, BadCredentialsException.class})
     public ResponseEntity<Map<String, String>> handleAuthenticationException(AuthenticationException ex) {
         Map<String, String> error = new HashMap<>();
@@ -0,0 +1,53 @@
+package com.recipeapp.repository;
+
+import com.recipeapp.entity.ImageDerivativeJob;
+import com.recipeapp.entity.ImageDerivativeJob.Status;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ImageDerivativeJobRepository extends JpaRepository<ImageDerivativeJob, Long> {
+    
+    List<ImageDerivativeJob> findByContentHashOrderBySize(String contentHash);
+    
+    // Content uploaded again, or by another image, already has its jobs: nothing to add
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO image_derivative_jobs (content_hash, size_key, status, attempts, created_at, updated_at) " +
+                   "VALUES (:hash, :size, 'PENDING', 0, :now, :now) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int enqueue(@Param("hash") String hash, @Param("size") String size, @Param("now") LocalDateTime now);
+    
+    @Query("SELECT j FROM ImageDerivativeJob j WHERE j.status = :pending " +
+           "OR (j.status = :running AND j.claimedAt < :staleBefore) ORDER BY j.id")
+    List<ImageDerivativeJob> findClaimable(@Param("pending") Status pending, @Param("running") Status running,
+                                           @Param("staleBefore") LocalDateTime staleBefore, Pageable pageable);
+    
+    default List<ImageDerivativeJob> findClaimable(LocalDateTime staleBefore, Pageable pageable) {
+        return findClaimable(Status.PENDING, Status.RUNNING, staleBefore, pageable);
+    }
+    
+    // Succeeds for one node only, since it re-checks what the claiming node read
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImageDerivativeJob j SET j.status = :running, j.claimedAt = :now, j.attempts = j.attempts + 1, " +
+           "j.updatedAt = :now WHERE j.id = :id AND (j.status = :pending OR (j.status = :running AND j.claimedAt < :staleBefore))")
+    int claim(@Param("id") Long id, @Param("pending") Status pending, @Param("running") Status running,
+              @Param("now") LocalDateTime now, @Param("staleBefore") LocalDateTime staleBefore);
+    
+    default boolean claim(Long id, LocalDateTime now, LocalDateTime staleBefore) {
+        return claim(id, Status.PENDING, Status.RUNNING, now, staleBefore) == 1;
+    }
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE ImageDerivativeJob j SET j.status = :status, j.lastError = :error, j.updatedAt = :now WHERE j.id = :id")
+    int finish(@Param("id") Long id, @Param("status") Status status, @Param("error") String error,
+               @Param("now") LocalDateTime now);
+}
\ No newline at end of file
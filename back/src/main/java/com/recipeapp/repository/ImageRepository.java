@@ -9,4 +9,5 @@ import java.util.List;
 public interface ImageRepository extends JpaRepository<Image, String> {
     List<Image> findByRecipeId(String recipeId);
     List<Image> findByIsActiveTrue();
+    List<Image> findByRecipeIdAndIsActiveTrueOrderByCreatedAtAscIdAsc(String recipeId);
 }
\ No newline at end of file
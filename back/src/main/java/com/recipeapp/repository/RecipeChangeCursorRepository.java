@@ -0,0 +1,20 @@
+package com.recipeapp.repository;
+
+import com.recipeapp.entity.RecipeChangeCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+
+@Repository
+public interface RecipeChangeCursorRepository extends JpaRepository<RecipeChangeCursor, String> {
+    
+    // Cursors of nodes that stopped polling, e.g. replaced instances with a random node id
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RecipeChangeCursor c WHERE c.updatedAt < :before")
+    int deleteUpdatedBefore(@Param("before") LocalDateTime before);
+}
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.recipeapp.repository;
+
+import com.recipeapp.entity.RecipeChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RecipeChangeRepository extends JpaRepository<RecipeChange, Long> {
+    
+    List<RecipeChange> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+    
+    @Query("SELECT COALESCE(MAX(c.id), 0) FROM RecipeChange c")
+    long findMaxId();
+    
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM RecipeChange c WHERE c.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
\ No newline at end of file
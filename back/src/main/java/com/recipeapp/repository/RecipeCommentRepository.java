@@ -0,0 +1,30 @@
+package com.recipeapp.repository;
+
+import com.recipeapp.dto.CommentResponse;
+import com.recipeapp.entity.RecipeComment;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RecipeCommentRepository extends JpaRepository<RecipeComment, String> {
+    
+    String COMMENT_SELECT = "SELECT new com.recipeapp.dto.CommentResponse(c.id, a.username, c.body, c.createdAt) " +
+            "FROM RecipeComment c LEFT JOIN c.author a ";
+    
+    // Keyset pages newest first over (createdAt, id), backed by idx_recipe_comments_recipe_created_id
+    @Query(COMMENT_SELECT + "WHERE c.recipe.id = :recipeId ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentResponse> findPage(@Param("recipeId") String recipeId, Pageable pageable);
+    
+    @Query(COMMENT_SELECT + "WHERE c.recipe.id = :recipeId " +
+           "AND (c.createdAt < :createdAt OR (c.createdAt = :createdAt AND c.id < :id)) " +
+           "ORDER BY c.createdAt DESC, c.id DESC")
+    List<CommentResponse> findPageAfter(@Param("recipeId") String recipeId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") String id,
+                                        Pageable pageable);
+}
\ No newline at end of file
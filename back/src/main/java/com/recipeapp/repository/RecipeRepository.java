@@ -1,30 +1,155 @@
 package com.recipeapp.repository;
 
+import com.recipeapp.dto.RecipeSummary;
 import com.recipeapp.entity.Recipe;
 import com.recipeapp.entity.Recipe.RecipeType;
 import com.recipeapp.entity.Recipe.Language;
+import com.recipeapp.search.TextMatch;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface RecipeRepository extends JpaRepository<Recipe, String> {
+public interface RecipeRepository extends JpaRepository<Recipe, String>, RecipeSearchRepository {
     
+    String SUMMARY_SELECT = "SELECT new com.recipeapp.dto.RecipeSummary(" +
+            "r.id, r.name, r.recipeType, r.cookingTime, r.language, u.username, r.updatedAt, r.commentCount) " +
+            "FROM Recipe r JOIN r.user u ";
+    
+    int EXPORT_FETCH_SIZE = 500;
+    
+    // Read paths rendered as RecipeResponse fetch the creator in the same statement
+    // so that the creator username does not cost one users query per row.
+    @EntityGraph(attributePaths = "user")
+    Optional<Recipe> findWithUserById(String id);
+    
+    // Neither loads nor versions the recipe; concurrent comments queue on the row lock, none is lost
+    @Modifying
+    @Query("UPDATE Recipe r SET r.commentCount = r.commentCount + 1 WHERE r.id = :id AND r.isActive = true")
+    int incrementCommentCount(@Param("id") String id);
+    
+    // Ownership checks that need nothing else of the recipe
+    @Query("SELECT r.user.id FROM Recipe r WHERE r.id = :id AND r.isActive = true")
+    Optional<String> findActiveOwnerId(@Param("id") String id);
+    
+    // Revalidation of conditional GETs without hydrating the recipe
+    @Query("SELECT r.version FROM Recipe r WHERE r.id = :id")
+    Optional<Long> findVersionById(@Param("id") String id);
+    
+    @EntityGraph(attributePaths = "user")
     List<Recipe> findByIsActiveTrue();
     
+    // Keyset pages over (name, id), backed by idx_recipes_active_name_id
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT r FROM Recipe r WHERE r.isActive = true ORDER BY r.name, r.id")
+    List<Recipe> findActivePage(Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT r FROM Recipe r WHERE r.isActive = true AND " +
+           "(r.name > :name OR (r.name = :name AND r.id > :id)) " +
+           "ORDER BY r.name, r.id")
+    List<Recipe> findActivePageAfter(@Param("name") String name, @Param("id") String id, Pageable pageable);
+    
+    @EntityGraph(attributePaths = "user")
     List<Recipe> findByUserId(String userId);
     
+    @EntityGraph(attributePaths = "user")
     List<Recipe> findByRecipeType(RecipeType recipeType);
     
     List<Recipe> findByLanguage(Language language);
     
-    @Query("SELECT r FROM Recipe r WHERE r.isActive = true AND " +
-           "LOWER(r.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<Recipe> searchByName(@Param("keyword") String keyword);
+    @EntityGraph(attributePaths = "user")
+    List<Recipe> findByIdInAndIsActiveTrue(Collection<String> ids);
     
-    @Query("SELECT r FROM Recipe r WHERE r.isActive = true AND " +
-           "CAST(r.ingredientsList AS string) LIKE LOWER(CONCAT('%', :ingredient, '%'))")
-    List<Recipe> searchByIngredient(@Param("ingredient") String ingredient);
+    // PostgreSQL only: served by the pg_trgm GIN index idx_recipes_name_trgm. The keyword
+    // comes normalized, the pattern is the keyword with its wildcards escaped
+    @Query(value = "SELECT r.id FROM recipes r WHERE r.is_active = true " +
+                   "AND LOWER(r.name) LIKE :pattern ESCAPE '\\' " +
+                   "ORDER BY similarity(LOWER(r.name), :keyword) DESC, r.name " +
+                   "LIMIT :limit", nativeQuery = true)
+    List<String> searchIdsByNameTrigram(@Param("pattern") String pattern, @Param("keyword") String keyword,
+                                        @Param("limit") int limit);
+    
+    // Ingredient lookups on recipe_ingredients, served by idx_recipe_ingredients_name. Whole
+    // normalized names only: "flour" does not match "all-purpose flour", nor "tom" "tomato";
+    // /autocomplete turns partial names and words into whole names first
+    String HAS_ANY_INGREDIENT = "r.id IN (SELECT ri.id FROM Recipe ri JOIN ri.ingredientNames i WHERE i IN :names)";
+    String HAS_ALL_INGREDIENTS = "r.id IN (SELECT ri.id FROM Recipe ri JOIN ri.ingredientNames i WHERE i IN :names " +
+                                 "GROUP BY ri.id HAVING COUNT(i) = :count)";
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT r FROM Recipe r WHERE r.isActive = true AND " + HAS_ANY_INGREDIENT)
+    List<Recipe> findByAnyIngredient(@Param("names") Collection<String> names);
+    
+    @EntityGraph(attributePaths = "user")
+    @Query("SELECT r FROM Recipe r WHERE r.isActive = true AND " + HAS_ALL_INGREDIENTS)
+    List<Recipe> findByAllIngredients(@Param("names") Collection<String> names, @Param("count") long count);
+    
+    // Summary projections: same filters as above, without the TEXT/jsonb columns
+    @Query(SUMMARY_SELECT + "WHERE r.isActive = true ORDER BY r.name, r.id")
+    List<RecipeSummary> findActiveSummaryPage(Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE r.isActive = true AND " +
+           "(r.name > :name OR (r.name = :name AND r.id > :id)) " +
+           "ORDER BY r.name, r.id")
+    List<RecipeSummary> findActiveSummaryPageAfter(@Param("name") String name, @Param("id") String id, Pageable pageable);
+    
+    @Query(SUMMARY_SELECT + "WHERE u.id = :userId")
+    List<RecipeSummary> findSummariesByUserId(@Param("userId") String userId);
+    
+    @Query(SUMMARY_SELECT + "WHERE r.recipeType = :recipeType")
+    List<RecipeSummary> findSummariesByRecipeType(@Param("recipeType") RecipeType recipeType);
+    
+    // PostgreSQL only: generated search_vector column, matched with the text search
+    // configuration of each recipe's language; snippets are computed for the top rows only,
+    // highlighted with the control characters of TextMatch, never markup, and stripped of them first
+    @Query(value = "SELECT m.id AS id, m.rank AS rank, " +
+                   "ts_headline(m.config, TRANSLATE(COALESCE(m.creator_comment, '') || ' ' || COALESCE(m.instructions, ''), " +
+                   "CHR(2) || CHR(3), ''), m.tsq, " +
+                   "'StartSel=' || CHR(2) || ', StopSel=' || CHR(3) || ', MinWords=10, MaxWords=30') AS snippet " +
+                   "FROM (SELECT r.id, r.creator_comment, r.instructions, q.config, q.tsq, " +
+                   "      ts_rank(r.search_vector, q.tsq) AS rank " +
+                   "      FROM recipes r JOIN (" +
+                   "          SELECT 'EN' AS language, CAST('english' AS regconfig) AS config, " +
+                   "                 websearch_to_tsquery('english', :query) AS tsq " +
+                   "          UNION ALL " +
+                   "          SELECT 'FR', CAST('french' AS regconfig), websearch_to_tsquery('french', :query)" +
+                   "      ) q ON q.language = r.language " +
+                   "      WHERE r.is_active = true AND r.search_vector @@ q.tsq " +
+                   "      AND (CAST(:language AS varchar) IS NULL OR r.language = :language) " +
+                   "      ORDER BY rank DESC LIMIT :limit) m " +
+                   "ORDER BY m.rank DESC", nativeQuery = true)
+    List<TextMatch> searchText(@Param("query") String query, @Param("language") String language, @Param("limit") int limit);
+    
+    @Query(SUMMARY_SELECT + "WHERE r.isActive = true AND r.id IN :ids")
+    List<RecipeSummary> findActiveSummariesByIdIn(@Param("ids") Collection<String> ids);
+    
+    @Query(SUMMARY_SELECT + "WHERE r.isActive = true AND " + HAS_ANY_INGREDIENT)
+    List<RecipeSummary> findSummariesByAnyIngredient(@Param("names") Collection<String> names);
+    
+    @Query(SUMMARY_SELECT + "WHERE r.isActive = true AND " + HAS_ALL_INGREDIENTS)
+    List<RecipeSummary> findSummariesByAllIngredients(@Param("names") Collection<String> names, @Param("count") long count);
+    
+    // Scrolled read for exports and index rebuilds; must be consumed inside a transaction
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT r FROM Recipe r JOIN FETCH r.user WHERE r.isActive = true AND " +
+           "(:language IS NULL OR r.language = :language) AND " +
+           "(:recipeType IS NULL OR r.recipeType = :recipeType) " +
+           "ORDER BY r.id")
+    Stream<Recipe> streamActive(@Param("language") Language language,
+                                         @Param("recipeType") RecipeType recipeType);
 }
\ No newline at end of file
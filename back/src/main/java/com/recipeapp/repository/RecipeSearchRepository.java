@@ -0,0 +1,27 @@
+package com.recipeapp.repository;
+
+import com.recipeapp.dto.RecipeSearchCriteria;
+import com.recipeapp.dto.RecipeSummary;
+import com.recipeapp.entity.Recipe;
+import java.util.List;
+
+/**
+ * Combined search built with the Criteria API, since any subset of the filters may be set.
+ */
+public interface RecipeSearchRepository {
+    
+    /**
+     * Summaries matching every filter, ordered by (name, id), starting strictly after
+     * the given keyset when {@code afterName} is not null.
+     */
+    List<RecipeSummary> searchSummaries(RecipeSearchCriteria criteria, String afterName, String afterId, int limit);
+    
+    /**
+     * Match counts per (recipeType, language) pair, with every filter applied except
+     * recipeType and language themselves.
+     */
+    List<FacetCount> countFacets(RecipeSearchCriteria criteria);
+    
+    record FacetCount(Recipe.RecipeType recipeType, Recipe.Language language, Long count) {
+    }
+}
\ No newline at end of file
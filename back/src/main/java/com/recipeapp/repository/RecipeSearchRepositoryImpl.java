@@ -0,0 +1,131 @@
+package com.recipeapp.repository;
+
+import com.recipeapp.dto.IngredientMatch;
+import com.recipeapp.dto.RecipeSearchCriteria;
+import com.recipeapp.dto.RecipeSummary;
+import com.recipeapp.entity.IngredientNames;
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+public class RecipeSearchRepositoryImpl implements RecipeSearchRepository {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<RecipeSummary> searchSummaries(RecipeSearchCriteria criteria, String afterName, String afterId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<RecipeSummary> query = cb.createQuery(RecipeSummary.class);
+        Root<Recipe> recipe = query.from(Recipe.class);
+        Join<Recipe, User> user = recipe.join("user");
+        
+        List<Predicate> predicates = filters(cb, query, recipe, criteria);
+        if (criteria.getRecipeType() != null) {
+            predicates.add(cb.equal(recipe.get("recipeType"), criteria.getRecipeType()));
+        }
+        if (criteria.getLanguage() != null) {
+            predicates.add(cb.equal(recipe.get("language"), criteria.getLanguage()));
+        }
+        if (afterName != null) {
+            predicates.add(cb.or(
+                cb.greaterThan(recipe.get("name"), afterName),
+                cb.and(cb.equal(recipe.get("name"), afterName), cb.greaterThan(recipe.get("id"), afterId))));
+        }
+        
+        query.select(cb.construct(RecipeSummary.class,
+                recipe.get("id"), recipe.get("name"), recipe.get("recipeType"), recipe.get("cookingTime"),
+                recipe.get("language"), user.get("username"), recipe.get("updatedAt"), recipe.get("commentCount")))
+            .where(predicates.toArray(Predicate[]::new))
+            .orderBy(cb.asc(recipe.get("name")), cb.asc(recipe.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+    
+    @Override
+    public List<FacetCount> countFacets(RecipeSearchCriteria criteria) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<FacetCount> query = cb.createQuery(FacetCount.class);
+        Root<Recipe> recipe = query.from(Recipe.class);
+        
+        query.select(cb.construct(FacetCount.class,
+                recipe.get("recipeType"), recipe.get("language"), cb.count(recipe)))
+            .where(filters(cb, query, recipe, criteria).toArray(Predicate[]::new))
+            .groupBy(recipe.get("recipeType"), recipe.get("language"));
+        return entityManager.createQuery(query).getResultList();
+    }
+    
+    /**
+     * Every filter except recipeType and language, which the facets count across.
+     */
+    private List<Predicate> filters(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Recipe> recipe,
+                                    RecipeSearchCriteria criteria) {
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.isTrue(recipe.get("isActive")));
+        
+        String keyword = criteria.getKeyword() == null ? "" : criteria.getKeyword().trim();
+        if (!keyword.isEmpty()) {
+            // Same LOWER(name) expression as idx_recipes_name_trgm
+            predicates.add(cb.like(cb.lower(recipe.get("name")), "%" + escapeLike(keyword.toLowerCase(Locale.ROOT)) + "%", '\\'));
+        }
+        
+        Set<String> ingredients = criteria.getIngredient() == null
+            ? Set.of()
+            : IngredientNames.normalizeAll(criteria.getIngredient());
+        if (!ingredients.isEmpty()) {
+            predicates.add(criteria.getMatch() == IngredientMatch.ANY
+                ? hasAnyIngredient(query, recipe, ingredients)
+                : hasAllIngredients(cb, query, recipe, ingredients));
+        }
+        
+        if (criteria.getMinCookingTime() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(recipe.get("cookingTime"), criteria.getMinCookingTime()));
+        }
+        if (criteria.getMaxCookingTime() != null) {
+            predicates.add(cb.lessThanOrEqualTo(recipe.get("cookingTime"), criteria.getMaxCookingTime()));
+        }
+        if (criteria.getMinTemperature() != null) {
+            predicates.add(cb.greaterThanOrEqualTo(recipe.get("temperature"), criteria.getMinTemperature()));
+        }
+        if (criteria.getMaxTemperature() != null) {
+            predicates.add(cb.lessThanOrEqualTo(recipe.get("temperature"), criteria.getMaxTemperature()));
+        }
+        return predicates;
+    }
+    
+    // Subqueries on recipe_ingredients, as HAS_ANY_INGREDIENT / HAS_ALL_INGREDIENTS in RecipeRepository
+    private Predicate hasAnyIngredient(CriteriaQuery<?> query, Root<Recipe> recipe,
+                                       Collection<String> names) {
+        var subquery = query.subquery(String.class);
+        Root<Recipe> candidate = subquery.from(Recipe.class);
+        Join<Recipe, String> ingredient = candidate.join("ingredientNames");
+        subquery.select(candidate.get("id")).where(ingredient.in(names));
+        return recipe.get("id").in(subquery);
+    }
+    
+    private Predicate hasAllIngredients(CriteriaBuilder cb, CriteriaQuery<?> query, Root<Recipe> recipe,
+                                        Collection<String> names) {
+        var subquery = query.subquery(String.class);
+        Root<Recipe> candidate = subquery.from(Recipe.class);
+        Join<Recipe, String> ingredient = candidate.join("ingredientNames");
+        subquery.select(candidate.get("id"))
+            .where(ingredient.in(names))
+            .groupBy(candidate.get("id"))
+            .having(cb.equal(cb.count(ingredient), (long) names.size()));
+        return recipe.get("id").in(subquery);
+    }
+    
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
\ No newline at end of file
@@ -2,6 +2,9 @@ package com.recipeapp.repository;
 
 import com.recipeapp.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -10,4 +13,11 @@ public interface UserRepository extends JpaRepository<User, String> {
     Optional<User> findByEmail(String email);
     Optional<User> findByUsername(String username);
     boolean existsByEmail(String email);
+    
+    @Query("SELECT u.isActive FROM User u WHERE u.id = :id")
+    Optional<Boolean> findIsActiveById(@Param("id") String id);
+    
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :passwordHash WHERE u.email = :email")
+    int updatePasswordHash(@Param("email") String email, @Param("passwordHash") String passwordHash);
 }
\ No newline at end of file
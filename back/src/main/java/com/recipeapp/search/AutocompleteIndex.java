@@ -0,0 +1,512 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.IngredientNames;
+import com.recipeapp.entity.Recipe;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Typeahead over active recipe names and ingredient names, answered from memory.
+ *
+ * <p>Each kind is a sorted array of the word starts of its terms, keyed by the normalized
+ * text ({@link IngredientNames#normalize}), so the completions of a prefix are one binary
+ * searched range ("chip" completes "Chocolate chip cookies", "flour" "all-purpose flour").
+ * An entry is a single long, the term's index and the offset of the word, so the array
+ * costs eight bytes per word however long the names. Ranges too large to scan have their
+ * top terms precomputed, per prefix. A term weighs the number of active recipes using it;
+ * recipe names add the number of user comments, as a measure of popularity.</p>
+ *
+ * <p>The arrays are immutable and built in one go on a full rebuild. Later changes wait
+ * in a small overlay that lookups merge in, until it is merged into new arrays; arrays
+ * and overlay are published together with one volatile write, so readers never lock.</p>
+ */
+@Component
+public class AutocompleteIndex implements RecipeIndex {
+    
+    public static final int MAX_SUGGESTIONS = 10;
+    
+    private static final Comparator<Term> BY_POPULARITY =
+        Comparator.comparingInt(Term::weight).reversed().thenComparing(Term::key);
+    
+    private final Dictionary names = new Dictionary();
+    private final Dictionary ingredients = new Dictionary();
+    private final Map<String, Contribution> contributions = new HashMap<>();
+    
+    @Override
+    public synchronized void clear() {
+        names.startRebuild();
+        ingredients.startRebuild();
+        contributions.clear();
+    }
+    
+    @Override
+    public synchronized void upsert(Recipe recipe) {
+        subtract(contributions.remove(recipe.getId()));
+        int nameWeight = 1 + (recipe.getCommentCount() == null ? 0 : recipe.getCommentCount());
+        String nameKey = names.add(IngredientNames.normalize(recipe.getName()), recipe.getName(), nameWeight);
+        List<String> ingredientKeys = new ArrayList<>();
+        for (String ingredient : IngredientNames.normalizeAll(recipe.getIngredientsList())) {
+            ingredientKeys.add(ingredients.add(ingredient, ingredient, 1));
+        }
+        // The dictionaries' own key instances, so that a recipe costs references only
+        contributions.put(recipe.getId(), new Contribution(nameKey, nameWeight, ingredientKeys.toArray(new String[0])));
+    }
+    
+    @Override
+    public synchronized void remove(String recipeId) {
+        subtract(contributions.remove(recipeId));
+    }
+    
+    @Override
+    public synchronized void apply(Collection<Recipe> upserted, Collection<String> removed) {
+        // A chunk changes thousands of terms: merge them into the arrays once, not every MAX_PENDING
+        names.deferMerges();
+        ingredients.deferMerges();
+        try {
+            RecipeIndex.super.apply(upserted, removed);
+        } finally {
+            names.resumeMerges();
+            ingredients.resumeMerges();
+        }
+    }
+    
+    @Override
+    public synchronized void rebuilt() {
+        names.publish();
+        ingredients.publish();
+    }
+    
+    public List<Suggestion> completeRecipeNames(String prefix, int limit) {
+        return names.complete(IngredientNames.normalize(prefix), limit);
+    }
+    
+    public List<Suggestion> completeIngredients(String prefix, int limit) {
+        return ingredients.complete(IngredientNames.normalize(prefix), limit);
+    }
+    
+    private void subtract(Contribution previous) {
+        if (previous != null) {
+            names.add(previous.nameKey(), previous.nameKey(), -previous.nameWeight());
+            for (String ingredient : previous.ingredients()) {
+                ingredients.add(ingredient, ingredient, -1);
+            }
+        }
+    }
+    
+    private record Contribution(String nameKey, int nameWeight, String[] ingredients) {
+    }
+    
+    /**
+     * A completion and its total weight, zero once no recipe backs it. Immutable: a
+     * weight change makes a new instance.
+     */
+    private record Term(String key, String display, int weight) {
+    }
+    
+    /**
+     * The terms of one kind: the map written under the index's lock, and the state
+     * published from it for readers.
+     */
+    private static final class Dictionary {
+        
+        // Small enough for lookups to scan their part of it, large enough to spread merges
+        private static final int MAX_PENDING = 512;
+        
+        private final Map<String, Term> terms = new HashMap<>();
+        private volatile State state = State.of(SortedTerms.of(List.of()));
+        private boolean rebuilding;
+        private boolean mergesDeferred;
+        
+        void startRebuild() {
+            terms.clear();
+            rebuilding = true;
+        }
+        
+        void publish() {
+            state = State.of(SortedTerms.of(terms.values()));
+            rebuilding = false;
+        }
+        
+        void deferMerges() {
+            mergesDeferred = true;
+        }
+        
+        void resumeMerges() {
+            mergesDeferred = false;
+            if (!rebuilding) {
+                mergeIfFull();
+            }
+        }
+        
+        /**
+         * Adds to the weight of a term and returns its key, as held by the dictionary.
+         */
+        String add(String key, String display, int delta) {
+            if (key.isEmpty()) {
+                return key;
+            }
+            Term previous = terms.get(key);
+            int weight = Math.max(0, (previous == null ? 0 : previous.weight()) + delta);
+            // Keep the key instance and the casing of the first recipe that introduced the term
+            Term term = previous == null
+                ? new Term(key, display.equals(key) ? key : display, weight)
+                : new Term(previous.key(), previous.display(), weight);
+            if (weight > 0) {
+                terms.put(key, term);
+            } else {
+                terms.remove(key);
+            }
+            
+            if (!rebuilding) {
+                state.pending().put(term);
+                if (!mergesDeferred) {
+                    mergeIfFull();
+                }
+            }
+            return term.key();
+        }
+        
+        private void mergeIfFull() {
+            State current = state;
+            if (current.pending().size() >= MAX_PENDING) {
+                state = State.of(current.sorted().merge(current.pending()));
+            }
+        }
+        
+        List<Suggestion> complete(String prefix, int limit) {
+            if (prefix.isEmpty() || limit <= 0) {
+                return List.of();
+            }
+            State current = state;
+            Map<String, Term> candidates = new HashMap<>();
+            current.sorted().collect(prefix, limit, current.pending(), candidates);
+            current.pending().collect(prefix, candidates);
+            return candidates.values().stream()
+                .sorted(BY_POPULARITY)
+                .limit(limit)
+                .map(term -> new Suggestion(term.display(), term.weight()))
+                .toList();
+        }
+    }
+    
+    private record State(SortedTerms sorted, Pending pending) {
+        
+        static State of(SortedTerms sorted) {
+            return new State(sorted, new Pending());
+        }
+    }
+    
+    /**
+     * Terms changed since the sorted arrays were built, by key and by word start. A
+     * term of weight zero hides the sorted one of the same key.
+     */
+    private static final class Pending {
+        
+        private final Map<String, Term> byKey = new ConcurrentHashMap<>();
+        private final ConcurrentNavigableMap<String, Set<String>> keysByWordStart = new ConcurrentSkipListMap<>();
+        
+        int size() {
+            return byKey.size();
+        }
+        
+        Term get(String key) {
+            return byKey.get(key);
+        }
+        
+        Collection<Term> terms() {
+            return byKey.values();
+        }
+        
+        void put(Term term) {
+            if (byKey.put(term.key(), term) == null) {
+                for (int start : wordStarts(term.key())) {
+                    keysByWordStart.computeIfAbsent(term.key().substring(start), path -> ConcurrentHashMap.newKeySet())
+                        .add(term.key());
+                }
+            }
+        }
+        
+        void collect(String prefix, Map<String, Term> candidates) {
+            for (Set<String> keys : keysByWordStart.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                for (String key : keys) {
+                    Term term = byKey.get(key);
+                    if (term != null && term.weight() > 0) {
+                        candidates.put(key, term);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Immutable sorted word starts of a set of terms, with the top terms of every prefix
+     * matching more than {@link #SCAN_LIMIT} of them.
+     */
+    private static final class SortedTerms {
+        
+        // A range this small is scanned about as fast as a stored top is looked up
+        private static final int SCAN_LIMIT = 256;
+        // More than a page, so that pending changes to a few of the top terms need no scan
+        private static final int STORED_TOP = 2 * MAX_SUGGESTIONS;
+        
+        private final Term[] terms;
+        // (term index << 32) | offset of a word start in the term's key, by suffix
+        private final long[] entries;
+        private final Map<String, Term[]> tops = new HashMap<>();
+        
+        private SortedTerms(Term[] terms, long[] entries) {
+            this.terms = terms;
+            this.entries = entries;
+            buildTops(0, entries.length, 0);
+        }
+        
+        static SortedTerms of(Collection<Term> source) {
+            Term[] terms = source.toArray(new Term[0]);
+            return new SortedTerms(terms, sortedEntries(terms, 0, terms.length));
+        }
+        
+        /**
+         * These terms with the pending changes applied, merged in linear time: only the
+         * pending terms are sorted.
+         */
+        SortedTerms merge(Pending pending) {
+            List<Term> merged = new ArrayList<>(terms.length + pending.size());
+            int[] remapped = new int[terms.length];
+            for (int i = 0; i < terms.length; i++) {
+                remapped[i] = pending.get(terms[i].key()) == null ? merged.size() : -1;
+                if (remapped[i] >= 0) {
+                    merged.add(terms[i]);
+                }
+            }
+            int firstChanged = merged.size();
+            for (Term term : pending.terms()) {
+                if (term.weight() > 0) {
+                    merged.add(term);
+                }
+            }
+            Term[] mergedTerms = merged.toArray(new Term[0]);
+            long[] changed = sortedEntries(mergedTerms, firstChanged, mergedTerms.length);
+            
+            long[] mergedEntries = new long[entries.length + changed.length];
+            int size = 0;
+            int next = 0;
+            for (long entry : entries) {
+                int index = remapped[(int) (entry >>> 32)];
+                if (index < 0) {
+                    continue;
+                }
+                long kept = ((long) index << 32) | (entry & 0xFFFFFFFFL);
+                while (next < changed.length && compareSuffixes(mergedTerms, changed[next], kept) < 0) {
+                    mergedEntries[size++] = changed[next++];
+                }
+                mergedEntries[size++] = kept;
+            }
+            while (next < changed.length) {
+                mergedEntries[size++] = changed[next++];
+            }
+            return new SortedTerms(mergedTerms, Arrays.copyOf(mergedEntries, size));
+        }
+        
+        /**
+         * Adds the best terms matching the prefix to the candidates, as of the pending
+         * changes: at least {@code limit} of them when there are that many.
+         */
+        void collect(String prefix, int limit, Pending pending, Map<String, Term> candidates) {
+            int from = bound(prefix, 0);
+            int to = bound(prefix, 1);
+            if (to - from > SCAN_LIMIT) {
+                Term[] top = tops.get(prefix);
+                if (top != null && collectTop(top, limit, pending, candidates)) {
+                    return;
+                }
+            }
+            for (int i = from; i < to; i++) {
+                Term term = terms[(int) (entries[i] >>> 32)];
+                Term changed = pending.get(term.key());
+                Term current = changed != null ? changed : term;
+                if (current.weight() > 0) {
+                    candidates.put(current.key(), current);
+                }
+            }
+        }
+        
+        /**
+         * Adds the stored top terms, and returns whether they are enough: a term outside
+         * them weighs no more than any of them did, so it can only be needed in place of
+         * one whose weight has since dropped.
+         */
+        private boolean collectTop(Term[] top, int limit, Pending pending, Map<String, Term> candidates) {
+            int kept = 0;
+            for (Term term : top) {
+                Term changed = pending.get(term.key());
+                Term current = changed != null ? changed : term;
+                if (current.weight() >= term.weight()) {
+                    kept++;
+                }
+                if (current.weight() > 0) {
+                    candidates.put(current.key(), current);
+                }
+            }
+            return kept >= limit || top.length < STORED_TOP;
+        }
+        
+        /**
+         * First entry starting with the prefix or after it ({@code after} 0), or first
+         * entry after all those starting with it ({@code after} 1).
+         */
+        private int bound(String prefix, int after) {
+            int low = 0;
+            int high = entries.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (comparePrefix(entries[middle], prefix) < after) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+        
+        /**
+         * Stores the top terms of the range [from, to), whose suffixes share their first
+         * {@code depth} characters, then of each of its sub-ranges by the next character.
+         */
+        private void buildTops(int from, int to, int depth) {
+            if (to - from <= SCAN_LIMIT) {
+                return;
+            }
+            if (depth > 0) {
+                long first = entries[from];
+                int offset = (int) first;
+                tops.put(terms[(int) (first >>> 32)].key().substring(offset, offset + depth), top(from, to));
+            }
+            int start = from;
+            // The suffix equal to the prefix itself sorts first and has no next character
+            while (start < to && suffixLength(entries[start]) == depth) {
+                start++;
+            }
+            while (start < to) {
+                char next = charAt(entries[start], depth);
+                int end = start + 1;
+                while (end < to && charAt(entries[end], depth) == next) {
+                    end++;
+                }
+                buildTops(start, end, depth + 1);
+                start = end;
+            }
+        }
+        
+        private Term[] top(int from, int to) {
+            PriorityQueue<Term> best = new PriorityQueue<>(STORED_TOP + 1, BY_POPULARITY.reversed());
+            Set<Term> kept = new HashSet<>();
+            for (int i = from; i < to; i++) {
+                Term term = terms[(int) (entries[i] >>> 32)];
+                // Once the top is full, only a term better than its worst can enter it
+                if (best.size() == STORED_TOP && BY_POPULARITY.compare(term, best.peek()) >= 0) {
+                    continue;
+                }
+                // Several word starts of one term can share a prefix
+                if (kept.add(term)) {
+                    best.add(term);
+                    if (best.size() > STORED_TOP) {
+                        kept.remove(best.poll());
+                    }
+                }
+            }
+            Term[] top = best.toArray(new Term[0]);
+            Arrays.sort(top, BY_POPULARITY);
+            return top;
+        }
+        
+        private int suffixLength(long entry) {
+            return terms[(int) (entry >>> 32)].key().length() - (int) entry;
+        }
+        
+        private char charAt(long entry, int index) {
+            return terms[(int) (entry >>> 32)].key().charAt((int) entry + index);
+        }
+        
+        /**
+         * Negative, zero or positive as the entry's suffix sorts before the prefix, starts
+         * with it, or sorts after all suffixes starting with it.
+         */
+        private int comparePrefix(long entry, String prefix) {
+            String key = terms[(int) (entry >>> 32)].key();
+            int offset = (int) entry;
+            int length = Math.min(key.length() - offset, prefix.length());
+            for (int i = 0; i < length; i++) {
+                int difference = key.charAt(offset + i) - prefix.charAt(i);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return length == prefix.length() ? 0 : -1;
+        }
+        
+        /**
+         * Word starts of the terms [from, to), sorted by suffix.
+         */
+        private static long[] sortedEntries(Term[] terms, int from, int to) {
+            List<Long> entries = new ArrayList<>();
+            for (int i = from; i < to; i++) {
+                for (int start : wordStarts(terms[i].key())) {
+                    entries.add(((long) i << 32) | start);
+                }
+            }
+            entries.sort((a, b) -> compareSuffixes(terms, a, b));
+            long[] sorted = new long[entries.size()];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = entries.get(i);
+            }
+            return sorted;
+        }
+        
+        private static int compareSuffixes(Term[] terms, long a, long b) {
+            String keyA = terms[(int) (a >>> 32)].key();
+            String keyB = terms[(int) (b >>> 32)].key();
+            int offsetA = (int) a;
+            int offsetB = (int) b;
+            int length = Math.min(keyA.length() - offsetA, keyB.length() - offsetB);
+            for (int i = 0; i < length; i++) {
+                int difference = keyA.charAt(offsetA + i) - keyB.charAt(offsetB + i);
+                if (difference != 0) {
+                    return difference;
+                }
+            }
+            return (keyA.length() - offsetA) - (keyB.length() - offsetB);
+        }
+    }
+    
+    /**
+     * Offsets of the words of a normalized key, whose spaces are single.
+     */
+    private static int[] wordStarts(String key) {
+        int count = 1;
+        for (int i = 1; i < key.length(); i++) {
+            if (key.charAt(i - 1) == ' ') {
+                count++;
+            }
+        }
+        int[] starts = new int[count];
+        int next = 1;
+        for (int i = 1; i < key.length(); i++) {
+            if (key.charAt(i - 1) == ' ') {
+                starts[next++] = i;
+            }
+        }
+        return starts;
+    }
+}
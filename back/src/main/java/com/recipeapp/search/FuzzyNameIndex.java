@@ -0,0 +1,401 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.IngredientNames;
+import com.recipeapp.entity.Recipe;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Typo-tolerant name search: every query word must be within a small edit distance of
+ * some word of the recipe name ("choclate chip" finds "Chocolate Chip Cookies").
+ *
+ * <p>Distances are computed against the dictionary of distinct name words, which is
+ * much smaller than the catalog. Candidate words come from trigram posting lists with
+ * a count filter (each edit destroys at most three trigrams), then a banded Levenshtein
+ * with early exit verifies them. Only the recipes of the most selective query word are
+ * then scored, against int word ids so that the scan stays cache friendly, and the best
+ * ones are kept in a bounded heap.</p>
+ *
+ * <p>Word ids are never reused until the next full rebuild. Dictionary, postings and
+ * entries form one immutable {@link Snapshot} of {@link PersistentMap}s, published with a
+ * single volatile write: a full rebuild fills the next one off to the side and publishes
+ * it on {@link #rebuilt()}, any other write derives it from the current one, at the cost
+ * of the words and posting lists it changes.</p>
+ */
+@Component
+public class FuzzyNameIndex implements RecipeIndex {
+    
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Comparator<Scored> RANKING = Comparator.comparingInt(Scored::distance)
+        .thenComparingInt(scored -> scored.entry().name().length())
+        .thenComparing(scored -> scored.entry().name());
+    
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // The snapshot being filled by a full rebuild, null otherwise; written under the lock
+    private Builder rebuilding;
+    
+    @Override
+    public synchronized void clear() {
+        rebuilding = new Builder(Snapshot.EMPTY);
+    }
+    
+    @Override
+    public void upsert(Recipe recipe) {
+        apply(List.of(recipe), List.of());
+    }
+    
+    @Override
+    public void remove(String recipeId) {
+        apply(List.of(), List.of(recipeId));
+    }
+    
+    @Override
+    public synchronized void apply(Collection<Recipe> upserted, Collection<String> removed) {
+        Builder builder = builder();
+        for (Recipe recipe : upserted) {
+            builder.remove(recipe.getId());
+            builder.add(recipe);
+        }
+        removed.forEach(builder::remove);
+        publish(builder);
+    }
+    
+    @Override
+    public synchronized void rebuilt() {
+        if (rebuilding != null) {
+            snapshot = rebuilding.build();
+            rebuilding = null;
+        }
+    }
+    
+    /**
+     * Ids of the recipes whose name fuzzily contains every word of {@code keyword},
+     * closest first.
+     */
+    public List<String> searchIds(String keyword, int limit) {
+        Snapshot index = snapshot;
+        Set<String> queryWords = words(IngredientNames.normalize(keyword));
+        if (queryWords.isEmpty()) {
+            return List.of();
+        }
+        
+        // Similar dictionary words per query word; cheap, the dictionary is small
+        List<Similar> similar = new ArrayList<>(queryWords.size());
+        for (String queryWord : queryWords) {
+            Similar words = similarWords(index, queryWord);
+            if (words.size() == 0) {
+                return List.of();
+            }
+            similar.add(words);
+        }
+        // Walk the postings of the most selective query word only; the other words are
+        // checked against each candidate's own word ids
+        similar.sort(Comparator.comparingLong(words -> postingsSize(index, words)));
+        Similar driver = similar.get(0);
+        
+        PriorityQueue<Scored> best = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        Set<Entry> seen = driver.size() > 1 ? new HashSet<>() : null;
+        for (int word : driver.ids()) {
+            PersistentMap<String, Entry> recipes = index.postings().get(word);
+            if (recipes == null) {
+                continue;
+            }
+            recipes.forEach((id, entry) -> {
+                if (seen != null && !seen.add(entry)) {
+                    return;
+                }
+                int total = 0;
+                for (int i = 0; i < similar.size() && total >= 0; i++) {
+                    int distance = similar.get(i).closest(entry.words());
+                    total = distance < 0 ? -1 : total + distance;
+                }
+                if (total >= 0) {
+                    best.add(new Scored(entry, total));
+                    if (best.size() > limit) {
+                        best.poll();
+                    }
+                }
+            });
+        }
+        
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        return ranked.stream().map(scored -> scored.entry().id()).toList();
+    }
+    
+    /**
+     * Edits allowed for a query word: none for very short words, whose every neighbour
+     * is another real word, then one, then two from eight characters on.
+     */
+    static int maxEdits(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() < 8 ? 1 : 2;
+    }
+    
+    /**
+     * Levenshtein distance between {@code a} and {@code b}, or {@code max + 1} as soon
+     * as it is known to exceed {@code max}. Only the diagonal band of width
+     * {@code 2 * max + 1} is computed.
+     */
+    static int boundedDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int outside = max + 1;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j <= max ? j : outside;
+        }
+        
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length(), i + max);
+            current[0] = i <= max ? i : outside;
+            if (from > 1) {
+                current[from - 1] = outside;
+            }
+            int rowMin = current[0];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j] + 1, current[j - 1] + 1));
+                current[j] = Math.min(value, outside);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (to < b.length()) {
+                current[to + 1] = outside;
+            }
+            if (rowMin > max) {
+                return outside;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return Math.min(previous[b.length()], outside);
+    }
+    
+    private static Similar similarWords(Snapshot index, String queryWord) {
+        int max = maxEdits(queryWord);
+        if (max == 0) {
+            Integer id = index.dictionary().get(queryWord);
+            return id == null ? Similar.NONE : new Similar(new int[] {id}, new int[] {0});
+        }
+        
+        Set<String> queryTrigrams = trigrams(queryWord);
+        Map<Integer, Integer> shared = new HashMap<>();
+        for (String trigram : queryTrigrams) {
+            PersistentMap<Integer, String> words = index.wordsByTrigram().get(trigram);
+            if (words != null) {
+                words.forEach((word, text) -> shared.merge(word, 1, Integer::sum));
+            }
+        }
+        
+        int minShared = Math.max(1, queryTrigrams.size() - 3 * max);
+        int[] ids = new int[shared.size()];
+        int[] distances = new int[shared.size()];
+        int size = 0;
+        for (Map.Entry<Integer, Integer> candidate : shared.entrySet()) {
+            if (candidate.getValue() >= minShared) {
+                int distance = boundedDistance(queryWord, index.wordsById().get(candidate.getKey()), max);
+                if (distance <= max) {
+                    ids[size] = candidate.getKey();
+                    distances[size++] = distance;
+                }
+            }
+        }
+        return new Similar(Arrays.copyOf(ids, size), Arrays.copyOf(distances, size));
+    }
+    
+    private static long postingsSize(Snapshot index, Similar similar) {
+        long size = 0;
+        for (int word : similar.ids()) {
+            PersistentMap<String, Entry> recipes = index.postings().get(word);
+            size += recipes == null ? 0 : recipes.size();
+        }
+        return size;
+    }
+    
+    private Builder builder() {
+        return rebuilding != null ? rebuilding : new Builder(snapshot);
+    }
+    
+    private void publish(Builder builder) {
+        if (builder != rebuilding) {
+            snapshot = builder.build();
+        }
+    }
+    
+    private static Set<String> words(String normalized) {
+        Set<String> words = new LinkedHashSet<>();
+        Matcher matcher = WORD.matcher(normalized);
+        while (matcher.find()) {
+            words.add(matcher.group());
+        }
+        return words;
+    }
+    
+    // Padded like pg_trgm, so that word boundaries count and short words have trigrams
+    private static Set<String> trigrams(String word) {
+        return Trigrams.of("  " + word + " ");
+    }
+    
+    /**
+     * Everything a search reads, never changed once published.
+     */
+    private record Snapshot(PersistentMap<String, Integer> dictionary, PersistentMap<Integer, String> wordsById,
+                            PersistentMap<String, PersistentMap<Integer, String>> wordsByTrigram,
+                            PersistentMap<Integer, PersistentMap<String, Entry>> postings,
+                            PersistentMap<String, Entry> entries) {
+        
+        static final Snapshot EMPTY = new Snapshot(PersistentMap.empty(), PersistentMap.empty(),
+            PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty());
+    }
+    
+    /**
+     * The next snapshot, derived from a published one. Used once.
+     */
+    private static final class Builder {
+        
+        private final PersistentMap.Editor<String, Integer> dictionary;
+        private final PersistentMap.Editor<Integer, String> wordsById;
+        private final PersistentMap.Editor<String, PersistentMap<Integer, String>> wordsByTrigram;
+        private final PersistentMap.Editor<Integer, PersistentMap<String, Entry>> postings;
+        private final PersistentMap.Editor<String, Entry> entries;
+        // Inner maps being changed, put back into their outer map by build()
+        private final Map<String, PersistentMap.Editor<Integer, String>> changedTrigrams = new HashMap<>();
+        private final Map<Integer, PersistentMap.Editor<String, Entry>> changedPostings = new HashMap<>();
+        
+        Builder(Snapshot from) {
+            dictionary = from.dictionary().edit();
+            wordsById = from.wordsById().edit();
+            wordsByTrigram = from.wordsByTrigram().edit();
+            postings = from.postings().edit();
+            entries = from.entries().edit();
+        }
+        
+        void add(Recipe recipe) {
+            String name = IngredientNames.normalize(recipe.getName());
+            int[] words = words(name).stream().mapToInt(this::idOf).toArray();
+            Entry entry = new Entry(recipe.getId(), name, words);
+            entries.put(recipe.getId(), entry);
+            for (int word : words) {
+                posting(word).put(recipe.getId(), entry);
+            }
+        }
+        
+        void remove(String recipeId) {
+            Entry entry = entries.remove(recipeId);
+            if (entry == null) {
+                return;
+            }
+            for (int word : entry.words()) {
+                posting(word).remove(recipeId);
+            }
+        }
+        
+        Snapshot build() {
+            changedTrigrams.forEach((trigram, words) -> wordsByTrigram.put(trigram, words.build()));
+            changedPostings.forEach((word, recipes) -> {
+                if (recipes.size() == 0) {
+                    postings.remove(word);
+                } else {
+                    postings.put(word, recipes.build());
+                }
+            });
+            return new Snapshot(dictionary.build(), wordsById.build(), wordsByTrigram.build(), postings.build(),
+                                entries.build());
+        }
+        
+        private int idOf(String word) {
+            Integer existing = dictionary.get(word);
+            if (existing != null) {
+                return existing;
+            }
+            int id = dictionary.size();
+            wordsById.put(id, word);
+            for (String trigram : trigrams(word)) {
+                changedTrigrams.computeIfAbsent(trigram, key -> edit(wordsByTrigram.get(key))).put(id, word);
+            }
+            dictionary.put(word, id);
+            return id;
+        }
+        
+        private PersistentMap.Editor<String, Entry> posting(int word) {
+            return changedPostings.computeIfAbsent(word, key -> edit(postings.get(key)));
+        }
+        
+        private static <K, V> PersistentMap.Editor<K, V> edit(PersistentMap<K, V> map) {
+            return (map == null ? PersistentMap.<K, V>empty() : map).edit();
+        }
+    }
+    
+    /**
+     * Dictionary words close to one query word, with their distances. Usually a handful,
+     * so membership is a linear scan.
+     */
+    private record Similar(int[] ids, int[] distances) {
+        
+        static final Similar NONE = new Similar(new int[0], new int[0]);
+        
+        int size() {
+            return ids.length;
+        }
+        
+        // Smallest distance of any of the recipe's words, or -1 when none is similar
+        int closest(int[] recipeWords) {
+            int closest = -1;
+            for (int word : recipeWords) {
+                for (int i = 0; i < ids.length; i++) {
+                    if (ids[i] == word && (closest < 0 || distances[i] < closest)) {
+                        closest = distances[i];
+                    }
+                }
+            }
+            return closest;
+        }
+    }
+    
+    // Identity equality on purpose: one instance per indexed version of a recipe
+    private static final class Entry {
+        
+        private final String id;
+        private final String name;
+        private final int[] words;
+        
+        Entry(String id, String name, int[] words) {
+            this.id = id;
+            this.name = name;
+            this.words = words;
+        }
+        
+        String id() {
+            return id;
+        }
+        
+        String name() {
+            return name;
+        }
+        
+        int[] words() {
+            return words;
+        }
+    }
+    
+    private record Scored(Entry entry, int distance) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,209 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.IngredientNames;
+import com.recipeapp.entity.Recipe;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * "Cook with what I have": each active recipe is kept as a bitset over a dictionary
+ * of normalized ingredient names, so scoring the whole catalog against a pantry is
+ * one AND-NOT and a popcount per word, evaluated in parallel.
+ *
+ * <p>Dictionary ids are handed out in first-seen order, not by frequency, and never
+ * reused until the next full rebuild; a recipe's bitset is as long as its highest id
+ * needs.</p>
+ *
+ * <p>Dictionary, names and recipes form one immutable {@link Snapshot} of
+ * {@link PersistentMap}s, published with a single volatile write, so a search never sees
+ * ids of one and names of another. A full rebuild fills the next snapshot off to the side
+ * and publishes it on {@link #rebuilt()}, the previous one answering until then. Any other
+ * write derives the next snapshot from the current one, at the cost of what it changes.</p>
+ */
+@Component
+public class IngredientSetIndex implements RecipeIndex {
+    
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    // The snapshot being filled by a full rebuild, null otherwise; written under the lock
+    private Builder rebuilding;
+    
+    @Override
+    public synchronized void clear() {
+        rebuilding = new Builder(Snapshot.EMPTY);
+    }
+    
+    @Override
+    public void upsert(Recipe recipe) {
+        apply(List.of(recipe), List.of());
+    }
+    
+    @Override
+    public void remove(String recipeId) {
+        apply(List.of(), List.of(recipeId));
+    }
+    
+    @Override
+    public synchronized void apply(Collection<Recipe> upserted, Collection<String> removed) {
+        Builder builder = builder();
+        upserted.forEach(builder::upsert);
+        removed.forEach(builder::remove);
+        publish(builder);
+    }
+    
+    @Override
+    public synchronized void rebuilt() {
+        if (rebuilding != null) {
+            snapshot = rebuilding.build();
+            rebuilding = null;
+        }
+    }
+    
+    /**
+     * Recipes using at least one pantry ingredient and missing at most
+     * {@code maxMissing} others, fewest missing first, then best coverage.
+     */
+    public List<PantryMatch> match(Iterable<String> pantry, int maxMissing, int limit) {
+        Snapshot index = snapshot;
+        long[] available = new long[0];
+        for (String name : IngredientNames.normalizeAll(pantry)) {
+            Integer id = index.dictionary().get(name);
+            // Not in any recipe, so it cannot change any score
+            if (id == null) {
+                continue;
+            }
+            if (id >>> 6 >= available.length) {
+                available = Arrays.copyOf(available, (id >>> 6) + 1);
+            }
+            available[id >>> 6] |= 1L << id;
+        }
+        if (available.length == 0) {
+            return List.of();
+        }
+        
+        long[] pantryBits = available;
+        List<Scored> scored = index.recipes().values().parallel()
+            .map(entry -> entry.score(pantryBits, maxMissing))
+            .filter(Objects::nonNull)
+            .sorted(Comparator.comparingInt(Scored::missing)
+                .thenComparing(Comparator.comparingInt(Scored::matched).reversed())
+                .thenComparing(scoredEntry -> scoredEntry.entry().id()))
+            .limit(limit)
+            .toList();
+        
+        PersistentMap<Integer, String> names = index.namesById();
+        List<PantryMatch> matches = new ArrayList<>(scored.size());
+        for (Scored match : scored) {
+            matches.add(new PantryMatch(match.entry().id(), match.matched(), match.entry().size(),
+                                        match.entry().missingNames(pantryBits, names)));
+        }
+        return matches;
+    }
+    
+    private Builder builder() {
+        return rebuilding != null ? rebuilding : new Builder(snapshot);
+    }
+    
+    private void publish(Builder builder) {
+        if (builder != rebuilding) {
+            snapshot = builder.build();
+        }
+    }
+    
+    /**
+     * Everything a search reads, never changed once published.
+     */
+    private record Snapshot(PersistentMap<String, Integer> dictionary, PersistentMap<Integer, String> namesById,
+                            PersistentMap<String, Entry> recipes) {
+        
+        static final Snapshot EMPTY = new Snapshot(PersistentMap.empty(), PersistentMap.empty(), PersistentMap.empty());
+    }
+    
+    /**
+     * The next snapshot, derived from a published one. Used once.
+     */
+    private static final class Builder {
+        
+        private final PersistentMap.Editor<String, Integer> dictionary;
+        private final PersistentMap.Editor<Integer, String> namesById;
+        private final PersistentMap.Editor<String, Entry> recipes;
+        
+        Builder(Snapshot from) {
+            dictionary = from.dictionary().edit();
+            namesById = from.namesById().edit();
+            recipes = from.recipes().edit();
+        }
+        
+        void upsert(Recipe recipe) {
+            Set<String> names = IngredientNames.normalizeAll(recipe.getIngredientsList());
+            if (names.isEmpty()) {
+                recipes.remove(recipe.getId());
+                return;
+            }
+            
+            long[] bits = new long[0];
+            for (String name : names) {
+                int id = idOf(name);
+                if (id >>> 6 >= bits.length) {
+                    bits = Arrays.copyOf(bits, (id >>> 6) + 1);
+                }
+                bits[id >>> 6] |= 1L << id;
+            }
+            recipes.put(recipe.getId(), new Entry(recipe.getId(), bits, names.size()));
+        }
+        
+        void remove(String recipeId) {
+            recipes.remove(recipeId);
+        }
+        
+        Snapshot build() {
+            return new Snapshot(dictionary.build(), namesById.build(), recipes.build());
+        }
+        
+        private int idOf(String name) {
+            Integer existing = dictionary.get(name);
+            if (existing != null) {
+                return existing;
+            }
+            int id = dictionary.size();
+            namesById.put(id, name);
+            dictionary.put(name, id);
+            return id;
+        }
+    }
+    
+    private record Entry(String id, long[] bits, int size) {
+        
+        Scored score(long[] pantry, int maxMissing) {
+            int matched = 0;
+            for (int i = 0; i < bits.length; i++) {
+                long available = i < pantry.length ? pantry[i] : 0L;
+                matched += Long.bitCount(bits[i] & available);
+            }
+            if (matched == 0 || size - matched > maxMissing) {
+                return null;
+            }
+            return new Scored(this, matched, size - matched);
+        }
+        
+        List<String> missingNames(long[] pantry, PersistentMap<Integer, String> names) {
+            List<String> missing = new ArrayList<>();
+            for (int i = 0; i < bits.length; i++) {
+                long word = bits[i] & ~(i < pantry.length ? pantry[i] : 0L);
+                while (word != 0) {
+                    missing.add(names.get((i << 6) + Long.numberOfTrailingZeros(word)));
+                    word &= word - 1;
+                }
+            }
+            return missing;
+        }
+    }
+    
+    private record Scored(Entry entry, int matched, int missing) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,193 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.Recipe;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process equivalent of the tsvector engine for databases without full-text
+ * support (the H2 test profile): an inverted index of stemmed terms to weighted
+ * term frequencies, ranked with tf-idf. Every query term must match.
+ */
+@Component
+@ConditionalOnProperty(name = "recipes.search.engine", havingValue = "memory")
+public class InvertedTextIndex implements RecipeIndex, RecipeTextSearch {
+    
+    // Field weights, in the spirit of setweight A/B/C on the tsvector column
+    private static final double NAME_WEIGHT = 3.0;
+    private static final double COMMENT_WEIGHT = 1.5;
+    private static final double INSTRUCTIONS_WEIGHT = 1.0;
+    private static final int SNIPPET_CONTEXT_WORDS = 8;
+    
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Double>> postings = new ConcurrentHashMap<>();
+    
+    @Override
+    public synchronized void clear() {
+        documents.clear();
+        postings.clear();
+    }
+    
+    @Override
+    public synchronized void upsert(Recipe recipe) {
+        remove(recipe.getId());
+        TextAnalyzer analyzer = TextAnalyzer.of(recipe.getLanguage());
+        Map<String, Double> weights = new HashMap<>();
+        addTerms(weights, analyzer.terms(recipe.getName()), NAME_WEIGHT);
+        addTerms(weights, analyzer.terms(recipe.getCreatorComment()), COMMENT_WEIGHT);
+        addTerms(weights, analyzer.terms(recipe.getInstructions()), INSTRUCTIONS_WEIGHT);
+        
+        documents.put(recipe.getId(), new Document(recipe.getLanguage(), recipe.getCreatorComment(),
+                                                   recipe.getInstructions(), weights.keySet()));
+        weights.forEach((term, weight) ->
+            postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(recipe.getId(), weight));
+    }
+    
+    @Override
+    public synchronized void remove(String recipeId) {
+        Document document = documents.remove(recipeId);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms()) {
+            Map<String, Double> docs = postings.get(term);
+            if (docs != null) {
+                docs.remove(recipeId);
+                if (docs.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public List<TextMatch> search(String query, Recipe.Language language, int limit) {
+        List<Hit> hits = new ArrayList<>();
+        for (Recipe.Language candidate : Recipe.Language.values()) {
+            if (language == null || language == candidate) {
+                collect(hits, query, candidate);
+            }
+        }
+        
+        return hits.stream()
+            .sorted(Comparator.comparingDouble(Hit::rank).reversed())
+            .limit(limit)
+            .map(hit -> (TextMatch) new Match(hit.id(), hit.rank(), snippet(hit.id(), hit.terms())))
+            .toList();
+    }
+    
+    private void collect(List<Hit> hits, String query, Recipe.Language language) {
+        Set<String> terms = new LinkedHashSet<>(TextAnalyzer.of(language).terms(query));
+        if (terms.isEmpty()) {
+            return;
+        }
+        
+        List<Map<String, Double>> lists = new ArrayList<>();
+        for (String term : terms) {
+            Map<String, Double> docs = postings.get(term);
+            if (docs == null) {
+                return;
+            }
+            lists.add(docs);
+        }
+        lists.sort(Comparator.comparingInt(Map::size));
+        
+        int total = Math.max(documents.size(), 1);
+        for (String id : lists.get(0).keySet()) {
+            Document document = documents.get(id);
+            if (document == null || document.language() != language) {
+                continue;
+            }
+            double rank = 0;
+            boolean all = true;
+            for (Map<String, Double> docs : lists) {
+                Double weight = docs.get(id);
+                if (weight == null) {
+                    all = false;
+                    break;
+                }
+                rank += weight * Math.log(1 + (double) total / docs.size());
+            }
+            if (all) {
+                hits.add(new Hit(id, rank, terms));
+            }
+        }
+    }
+    
+    private String snippet(String id, Set<String> terms) {
+        Document document = documents.get(id);
+        if (document == null) {
+            return "";
+        }
+        TextAnalyzer analyzer = TextAnalyzer.of(document.language());
+        String text = TextMatch.unmarked(String.join(" ",
+            document.comment() == null ? "" : document.comment(),
+            document.instructions() == null ? "" : document.instructions()).trim());
+        List<TextAnalyzer.Token> tokens = analyzer.tokens(text);
+        
+        int first = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            if (terms.contains(analyzer.term(tokens.get(i).word()))) {
+                first = i;
+                break;
+            }
+        }
+        if (tokens.isEmpty()) {
+            return "";
+        }
+        
+        int from = Math.max(0, first - SNIPPET_CONTEXT_WORDS);
+        int to = Math.min(tokens.size() - 1, first + SNIPPET_CONTEXT_WORDS);
+        StringBuilder snippet = new StringBuilder();
+        int cursor = tokens.get(from).start();
+        for (int i = from; i <= to; i++) {
+            TextAnalyzer.Token token = tokens.get(i);
+            snippet.append(text, cursor, token.start());
+            if (terms.contains(analyzer.term(token.word()))) {
+                snippet.append(TextMatch.HIGHLIGHT_START).append(token.word()).append(TextMatch.HIGHLIGHT_STOP);
+            } else {
+                snippet.append(token.word());
+            }
+            cursor = token.end();
+        }
+        return snippet.toString();
+    }
+    
+    private static void addTerms(Map<String, Double> weights, List<String> terms, double weight) {
+        for (String term : terms) {
+            weights.merge(term, weight, Double::sum);
+        }
+    }
+    
+    private record Document(Recipe.Language language, String comment, String instructions, Set<String> terms) {
+    }
+    
+    private record Hit(String id, double rank, Set<String> terms) {
+    }
+    
+    private record Match(String id, double rank, String snippet) implements TextMatch {
+        
+        @Override
+        public String getId() {
+            return id;
+        }
+        
+        @Override
+        public Double getRank() {
+            return rank;
+        }
+        
+        @Override
+        public String getSnippet() {
+            return snippet;
+        }
+    }
+}
\ No newline at end of file
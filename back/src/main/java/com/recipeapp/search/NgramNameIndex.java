@@ -0,0 +1,108 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.Recipe;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process equivalent of the pg_trgm engine, used where the database has no
+ * trigram support (the H2 test profile). Candidates come from intersecting the
+ * posting lists of the keyword trigrams and are then verified as substrings.
+ */
+@Component
+@ConditionalOnProperty(name = "recipes.search.engine", havingValue = "memory")
+public class NgramNameIndex implements RecipeIndex, RecipeNameSearch {
+    
+    private final Map<String, String> names = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> postings = new ConcurrentHashMap<>();
+    
+    @Override
+    public synchronized void clear() {
+        names.clear();
+        postings.clear();
+    }
+    
+    @Override
+    public synchronized void upsert(Recipe recipe) {
+        remove(recipe.getId());
+        String name = Trigrams.normalize(recipe.getName());
+        names.put(recipe.getId(), name);
+        for (String trigram : Trigrams.of(name)) {
+            postings.computeIfAbsent(trigram, key -> ConcurrentHashMap.newKeySet()).add(recipe.getId());
+        }
+    }
+    
+    @Override
+    public synchronized void remove(String recipeId) {
+        String name = names.remove(recipeId);
+        if (name == null) {
+            return;
+        }
+        for (String trigram : Trigrams.of(name)) {
+            Set<String> ids = postings.get(trigram);
+            if (ids != null) {
+                ids.remove(recipeId);
+                if (ids.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+    
+    @Override
+    public List<String> searchIds(String keyword, int limit) {
+        String query = Trigrams.normalize(keyword);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        
+        Set<String> queryTrigrams = Trigrams.of(query);
+        Collection<String> candidates = queryTrigrams.isEmpty() ? names.keySet() : intersect(queryTrigrams);
+        
+        List<Scored> matches = new ArrayList<>();
+        for (String id : candidates) {
+            String name = names.get(id);
+            if (name != null && name.contains(query)) {
+                double score = queryTrigrams.isEmpty()
+                    ? (double) query.length() / name.length()
+                    : Trigrams.similarity(queryTrigrams, Trigrams.of(name));
+                matches.add(new Scored(id, name, score));
+            }
+        }
+        
+        return matches.stream()
+            .sorted(Comparator.comparingDouble(Scored::score).reversed().thenComparing(Scored::name))
+            .limit(limit)
+            .map(Scored::id)
+            .toList();
+    }
+    
+    private Collection<String> intersect(Set<String> trigrams) {
+        List<Set<String>> lists = new ArrayList<>();
+        for (String trigram : trigrams) {
+            Set<String> ids = postings.get(trigram);
+            if (ids == null) {
+                return List.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(Set::size));
+        
+        Set<String> result = new HashSet<>(lists.get(0));
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            result.retainAll(lists.get(i));
+        }
+        return result;
+    }
+    
+    private record Scored(String id, String name, double score) {
+    }
+}
@@ -0,0 +1,18 @@
+package com.recipeapp.search;
+
+import java.util.List;
+
+/**
+ * One recipe that can be cooked from a pantry: how many of its ingredients the
+ * pantry covers and which ones are still missing.
+ */
+public record PantryMatch(String recipeId, int matched, int total, List<String> missingIngredients) {
+    
+    public int missing() {
+        return total - matched;
+    }
+    
+    public double coverage() {
+        return total == 0 ? 0 : (double) matched / total;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,302 @@
+package com.recipeapp.search;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Immutable hash map for the published snapshots of the in-process indexes, whose
+ * changes copy only the path to the changed key: a tree of 32-way branches on the key's
+ * hash bits, ending in leaves of a few entries. A change to a map of n entries copies
+ * about log32(n) small nodes, so a snapshot is updated at the cost of what changed, not
+ * of its size.
+ *
+ * <p>Changes go through an {@link Editor}, which changes the nodes it created itself in
+ * place: a batch of changes, or a whole rebuild, copies a node at most once. Once built,
+ * the map's nodes are never written again. Keys and values must not be null.</p>
+ */
+final class PersistentMap<K, V> {
+    
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+    // Past the last level of branches, keys of one full hash share an unbounded leaf
+    private static final int LAST_SHIFT = 30;
+    private static final int LEAF_CAPACITY = 16;
+    
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+    
+    private final Node root;
+    private final int size;
+    
+    private PersistentMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+    
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    V get(Object key) {
+        return find(root, key);
+    }
+    
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        forEach(root, action);
+    }
+    
+    /**
+     * The values, gathered in an array first, so that a parallel stream splits evenly.
+     */
+    @SuppressWarnings("unchecked")
+    Stream<V> values() {
+        Object[] values = new Object[size];
+        collectValues(root, values, 0);
+        return Arrays.stream((V[]) values);
+    }
+    
+    Editor<K, V> edit() {
+        return new Editor<>(root, size);
+    }
+    
+    private static int hash(Object key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <V> V find(Node node, Object key) {
+        int hash = hash(key);
+        int shift = 0;
+        while (node instanceof Branch branch) {
+            node = branch.children[(hash >>> shift) & MASK];
+            shift += BITS;
+        }
+        if (node == null) {
+            return null;
+        }
+        Leaf leaf = (Leaf) node;
+        int index = leaf.indexOf(key);
+        return index < 0 ? null : (V) leaf.values[index];
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <K, V> void forEach(Node node, BiConsumer<? super K, ? super V> action) {
+        if (node instanceof Branch branch) {
+            for (Node child : branch.children) {
+                forEach(child, action);
+            }
+        } else if (node != null) {
+            Leaf leaf = (Leaf) node;
+            for (int i = 0; i < leaf.count; i++) {
+                action.accept((K) leaf.keys[i], (V) leaf.values[i]);
+            }
+        }
+    }
+    
+    private static int collectValues(Node node, Object[] values, int from) {
+        if (node instanceof Branch branch) {
+            for (Node child : branch.children) {
+                from = collectValues(child, values, from);
+            }
+        } else if (node != null) {
+            Leaf leaf = (Leaf) node;
+            System.arraycopy(leaf.values, 0, values, from, leaf.count);
+            from += leaf.count;
+        }
+        return from;
+    }
+    
+    /**
+     * Changes to a map, made visible as a new map by {@link #build()}. Not thread safe.
+     */
+    static final class Editor<K, V> {
+        
+        // Marks the nodes this editor created, until they are published by build()
+        private Object owner = new Object();
+        private Node root;
+        private int size;
+        private boolean added;
+        
+        private Editor(Node root, int size) {
+            this.root = root;
+            this.size = size;
+        }
+        
+        int size() {
+            return size;
+        }
+        
+        V get(Object key) {
+            return find(root, key);
+        }
+        
+        void put(K key, V value) {
+            added = false;
+            root = put(root, key, value, hash(key), 0);
+            if (added) {
+                size++;
+            }
+        }
+        
+        @SuppressWarnings("unchecked")
+        V remove(Object key) {
+            Object[] removed = new Object[1];
+            root = remove(root, key, hash(key), 0, removed);
+            if (removed[0] != null) {
+                size--;
+            }
+            return (V) removed[0];
+        }
+        
+        PersistentMap<K, V> build() {
+            // The nodes created so far now belong to the map: later changes copy them
+            owner = new Object();
+            return size == 0 ? empty() : new PersistentMap<>(root, size);
+        }
+        
+        private Node put(Node node, Object key, Object value, int hash, int shift) {
+            if (node == null) {
+                Leaf leaf = new Leaf(owner, 4);
+                leaf.append(key, value);
+                added = true;
+                return leaf;
+            }
+            if (node instanceof Branch branch) {
+                int index = (hash >>> shift) & MASK;
+                Node child = branch.children[index];
+                Node changed = put(child, key, value, hash, shift + BITS);
+                if (changed == child) {
+                    return branch;
+                }
+                Branch target = branch.owner == owner ? branch : new Branch(owner, branch.children.clone());
+                target.children[index] = changed;
+                return target;
+            }
+            
+            Leaf leaf = (Leaf) node;
+            int index = leaf.indexOf(key);
+            if (index >= 0) {
+                if (leaf.values[index] == value) {
+                    return leaf;
+                }
+                Leaf target = leaf.owner == owner ? leaf : leaf.copy(owner, leaf.count);
+                target.values[index] = value;
+                return target;
+            }
+            if (leaf.count >= LEAF_CAPACITY && shift <= LAST_SHIFT) {
+                // Full: its entries move one level down, under a branch of this editor
+                Node branch = new Branch(owner, new Node[1 << BITS]);
+                for (int i = 0; i < leaf.count; i++) {
+                    branch = put(branch, leaf.keys[i], leaf.values[i], hash(leaf.keys[i]), shift);
+                }
+                return put(branch, key, value, hash, shift);
+            }
+            Leaf target = leaf.owner == owner && leaf.count < leaf.keys.length
+                ? leaf
+                : leaf.copy(owner, Math.min(leaf.count * 2, Math.max(LEAF_CAPACITY, leaf.count + 1)));
+            target.append(key, value);
+            added = true;
+            return target;
+        }
+        
+        private Node remove(Node node, Object key, int hash, int shift, Object[] removed) {
+            if (node == null) {
+                return null;
+            }
+            if (node instanceof Branch branch) {
+                int index = (hash >>> shift) & MASK;
+                Node child = branch.children[index];
+                Node changed = remove(child, key, hash, shift + BITS, removed);
+                if (changed == child) {
+                    return branch;
+                }
+                Branch target = branch.owner == owner ? branch : new Branch(owner, branch.children.clone());
+                target.children[index] = changed;
+                return target;
+            }
+            
+            Leaf leaf = (Leaf) node;
+            int index = leaf.indexOf(key);
+            if (index < 0) {
+                return leaf;
+            }
+            removed[0] = leaf.values[index];
+            if (leaf.count == 1) {
+                return null;
+            }
+            Leaf target = leaf.owner == owner ? leaf : leaf.copy(owner, leaf.count);
+            int last = target.count - 1;
+            target.keys[index] = target.keys[last];
+            target.values[index] = target.values[last];
+            target.keys[last] = null;
+            target.values[last] = null;
+            target.count = last;
+            return target;
+        }
+    }
+    
+    private abstract static class Node {
+        
+        final Object owner;
+        
+        Node(Object owner) {
+            this.owner = owner;
+        }
+    }
+    
+    private static final class Branch extends Node {
+        
+        final Node[] children;
+        
+        Branch(Object owner, Node[] children) {
+            super(owner);
+            this.children = children;
+        }
+    }
+    
+    private static final class Leaf extends Node {
+        
+        Object[] keys;
+        Object[] values;
+        int count;
+        
+        Leaf(Object owner, int capacity) {
+            super(owner);
+            keys = new Object[capacity];
+            values = new Object[capacity];
+        }
+        
+        int indexOf(Object key) {
+            for (int i = 0; i < count; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        
+        void append(Object key, Object value) {
+            keys[count] = key;
+            values[count] = value;
+            count++;
+        }
+        
+        Leaf copy(Object owner, int capacity) {
+            Leaf copy = new Leaf(owner, Math.max(capacity, count));
+            System.arraycopy(keys, 0, copy.keys, 0, count);
+            System.arraycopy(values, 0, copy.values, 0, count);
+            copy.count = count;
+            return copy;
+        }
+    }
+}
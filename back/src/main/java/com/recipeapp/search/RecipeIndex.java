@@ -0,0 +1,36 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.Recipe;
+import java.util.Collection;
+
+/**
+ * In-process index over the active recipes, kept up to date by {@link RecipeIndexMaintainer}.
+ * Implementations must tolerate concurrent reads while they are being written.
+ */
+public interface RecipeIndex {
+    
+    /**
+     * Starts a full rebuild: every active recipe is upserted next, then {@link #rebuilt()}
+     * is called. Until then the index may go on answering from its previous content.
+     */
+    void clear();
+    
+    void upsert(Recipe recipe);
+    
+    void remove(String recipeId);
+    
+    /**
+     * Applies the changes of one event at once: indexes that publish snapshots override
+     * it to publish a single one, instead of one per recipe.
+     */
+    default void apply(Collection<Recipe> upserted, Collection<String> removed) {
+        upserted.forEach(this::upsert);
+        removed.forEach(this::remove);
+    }
+    
+    /**
+     * Ends the full rebuild started by {@link #clear()}.
+     */
+    default void rebuilt() {
+    }
+}
@@ -0,0 +1,77 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.repository.RecipeRepository;
+import com.recipeapp.service.RecipeChangedEvent;
+import com.recipeapp.service.RecipeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds every {@link RecipeIndex} from the database at startup and applies
+ * recipe changes to them once the writing transaction has committed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecipeIndexMaintainer {
+    
+    private final RecipeRepository recipeRepository;
+    private final RecipeService recipeService;
+    private final ObjectProvider<RecipeIndex> indexes;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildAll() {
+        List<RecipeIndex> targets = indexes.orderedStream().toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+        
+        targets.forEach(RecipeIndex::clear);
+        int[] count = {0};
+        try {
+            recipeService.forEachActiveRecipe(null, null, recipe -> {
+                targets.forEach(index -> index.upsert(recipe));
+                count[0]++;
+            });
+        } finally {
+            targets.forEach(RecipeIndex::rebuilt);
+        }
+        log.info("Rebuilt {} recipe indexes from {} active recipes", targets.size(), count[0]);
+    }
+    
+    @TransactionalEventListener(fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        List<RecipeIndex> targets = indexes.orderedStream().toList();
+        if (targets.isEmpty()) {
+            return;
+        }
+        
+        Map<String, Recipe> recipes = new HashMap<>();
+        recipeRepository.findAllById(event.getRecipeIds()).forEach(recipe -> recipes.put(recipe.getId(), recipe));
+        List<Recipe> upserted = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        for (String id : event.getRecipeIds()) {
+            Recipe recipe = recipes.get(id);
+            if (recipe != null && recipe.getIsActive()) {
+                upserted.add(recipe);
+            } else {
+                removed.add(id);
+            }
+        }
+        // One batch per index, whether the event is a local transaction or a replay of the feed
+        targets.forEach(index -> index.apply(upserted, removed));
+    }
+}
@@ -0,0 +1,12 @@
+package com.recipeapp.search;
+
+import java.util.List;
+
+/**
+ * Substring search over active recipe names, most relevant first.
+ * The engine is selected by {@code recipes.search.engine}.
+ */
+public interface RecipeNameSearch {
+    
+    List<String> searchIds(String keyword, int limit);
+}
@@ -0,0 +1,14 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.Recipe;
+import java.util.List;
+
+/**
+ * Stemmed full-text search over recipe names, creator comments and instructions,
+ * best match first. A null language searches both languages, each with its own
+ * stemming. The engine is selected by {@code recipes.search.engine}.
+ */
+public interface RecipeTextSearch {
+    
+    List<TextMatch> search(String query, Recipe.Language language, int limit);
+}
@@ -0,0 +1,7 @@
+package com.recipeapp.search;
+
+/**
+ * One typeahead completion: the text to show and how many active recipes back it.
+ */
+public record Suggestion(String text, int weight) {
+}
\ No newline at end of file
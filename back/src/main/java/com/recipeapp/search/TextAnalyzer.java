@@ -0,0 +1,115 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.Recipe;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Per-language tokenizer, stop-word filter and light suffix-stripping stemmer for the
+ * in-process full-text index. Deliberately small: it only needs to conflate the usual
+ * inflections ("braised", "braising", "braise"; "mijoté", "mijoter") the way the
+ * PostgreSQL english/french configurations do.
+ */
+public enum TextAnalyzer {
+    
+    EN(Set.of("a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "if", "in", "into",
+              "is", "it", "its", "no", "not", "of", "on", "or", "so", "such", "that", "the", "their",
+              "then", "there", "these", "they", "this", "to", "until", "was", "were", "will", "with"),
+       new String[] {"ing", "ed", "es", "s", "e"}),
+    
+    FR(Set.of("a", "au", "aux", "avec", "ce", "ces", "dans", "de", "des", "du", "elle", "en", "et", "il",
+              "je", "la", "le", "les", "leur", "lui", "ma", "mais", "me", "meme", "mes", "moi", "mon", "ne",
+              "nos", "notre", "nous", "on", "ou", "par", "pas", "pour", "qu", "que", "qui", "sa", "se",
+              "ses", "son", "sur", "ta", "te", "tes", "toi", "ton", "tu", "un", "une", "vos", "votre", "vous"),
+       new String[] {"issements", "issement", "ements", "ement", "ations", "ation", "euses", "euse",
+                     "ees", "ee", "es", "er", "ez", "e", "s", "x"});
+    
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int MIN_STEM_LENGTH = 3;
+    
+    private final Set<String> stopWords;
+    private final String[] suffixes;
+    
+    TextAnalyzer(Set<String> stopWords, String[] suffixes) {
+        this.stopWords = stopWords;
+        this.suffixes = suffixes;
+    }
+    
+    public static TextAnalyzer of(Recipe.Language language) {
+        return language == Recipe.Language.FR ? FR : EN;
+    }
+    
+    /**
+     * Index terms of {@code text}, in order, stop words removed.
+     */
+    public List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (Token token : tokens(text)) {
+            String term = term(token.word());
+            if (term != null) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+    
+    /**
+     * Words of {@code text} with their offsets, for highlighting.
+     */
+    public List<Token> tokens(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = WORD.matcher(text);
+        while (matcher.find()) {
+            tokens.add(new Token(matcher.group(), matcher.start(), matcher.end()));
+        }
+        return tokens;
+    }
+    
+    /**
+     * Index term of a single word, or null for a stop word.
+     */
+    public String term(String word) {
+        String folded = DIACRITICS.matcher(Normalizer.normalize(word, Normalizer.Form.NFD))
+            .replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        if (stopWords.contains(folded)) {
+            return null;
+        }
+        return stem(folded);
+    }
+    
+    private String stem(String word) {
+        // The y of a stem after a consonant becomes i, as in PostgreSQL: berry, berries -> berri
+        if (this == EN && word.endsWith("ies") && word.length() > 4) {
+            return word.substring(0, word.length() - 2);
+        }
+        if (this == EN && word.endsWith("y") && word.length() > MIN_STEM_LENGTH
+                && "aeiouy".indexOf(word.charAt(word.length() - 2)) < 0) {
+            return word.substring(0, word.length() - 1) + "i";
+        }
+        for (String suffix : suffixes) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM_LENGTH) {
+                String stem = word.substring(0, word.length() - suffix.length());
+                // chopped -> chop, not chopp
+                int last = stem.length() - 1;
+                if (this == EN && stem.charAt(last) == stem.charAt(last - 1) && "bdgmnprt".indexOf(stem.charAt(last)) >= 0) {
+                    stem = stem.substring(0, last);
+                }
+                return stem;
+            }
+        }
+        return word;
+    }
+    
+    public record Token(String word, int start, int end) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.recipeapp.search;
+
+import org.springframework.web.util.HtmlUtils;
+
+/**
+ * One full-text hit: the recipe id, its rank and a snippet of the matching text with
+ * the matched words between {@link #HIGHLIGHT_START} and {@link #HIGHLIGHT_STOP}, control
+ * characters stripped from the recipe text beforehand. Also used as a native query projection.
+ */
+public interface TextMatch {
+    
+    String HIGHLIGHT_START = "\u0002";
+    String HIGHLIGHT_STOP = "\u0003";
+    
+    String getId();
+    
+    Double getRank();
+    
+    String getSnippet();
+    
+    /**
+     * A snippet as HTML: the user-written text escaped, then the matched words wrapped
+     * in {@code <b>} tags, so that clients can render it as is.
+     */
+    static String toHtml(String snippet) {
+        if (snippet == null) {
+            return null;
+        }
+        return HtmlUtils.htmlEscape(snippet, "UTF-8")
+            .replace(HIGHLIGHT_START, "<b>")
+            .replace(HIGHLIGHT_STOP, "</b>");
+    }
+    
+    /**
+     * The text without any of the highlight delimiters, which it could otherwise forge.
+     */
+    static String unmarked(String text) {
+        return text.replace(HIGHLIGHT_START, "").replace(HIGHLIGHT_STOP, "");
+    }
+}
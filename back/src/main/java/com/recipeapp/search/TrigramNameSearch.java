@@ -0,0 +1,31 @@
+package com.recipeapp.search;
+
+import com.recipeapp.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+/**
+ * PostgreSQL engine: the LIKE predicate and the similarity ordering are both
+ * served by the pg_trgm GIN index idx_recipes_name_trgm. The keyword is normalized
+ * as {@link NgramNameIndex} does, and its LIKE wildcards escaped, so that both
+ * engines match the same literal substring.
+ */
+@Component
+@ConditionalOnProperty(name = "recipes.search.engine", havingValue = "postgres", matchIfMissing = true)
+@RequiredArgsConstructor
+public class TrigramNameSearch implements RecipeNameSearch {
+    
+    private final RecipeRepository recipeRepository;
+    
+    @Override
+    public List<String> searchIds(String keyword, int limit) {
+        String query = Trigrams.normalize(keyword);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+        String pattern = "%" + query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return recipeRepository.searchIdsByNameTrigram(pattern, query, limit);
+    }
+}
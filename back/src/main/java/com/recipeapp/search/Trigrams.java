@@ -0,0 +1,40 @@
+package com.recipeapp.search;
+
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+final class Trigrams {
+    
+    private Trigrams() {
+    }
+    
+    static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    /**
+     * Every three-character window of an already normalized string; a string
+     * contains a substring only if it contains all of the substring's trigrams.
+     */
+    static Set<String> of(String normalized) {
+        Set<String> trigrams = new HashSet<>();
+        for (int i = 0; i + 3 <= normalized.length(); i++) {
+            trigrams.add(normalized.substring(i, i + 3));
+        }
+        return trigrams;
+    }
+    
+    static double similarity(Set<String> left, Set<String> right) {
+        if (left.isEmpty() || right.isEmpty()) {
+            return 0;
+        }
+        int shared = 0;
+        for (String trigram : left) {
+            if (right.contains(trigram)) {
+                shared++;
+            }
+        }
+        return (double) shared / (left.size() + right.size() - shared);
+    }
+}
@@ -0,0 +1,24 @@
+package com.recipeapp.search;
+
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.repository.RecipeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+/**
+ * PostgreSQL engine backed by the generated recipes.search_vector column and its GIN index.
+ */
+@Component
+@ConditionalOnProperty(name = "recipes.search.engine", havingValue = "postgres", matchIfMissing = true)
+@RequiredArgsConstructor
+public class TsvectorTextSearch implements RecipeTextSearch {
+    
+    private final RecipeRepository recipeRepository;
+    
+    @Override
+    public List<TextMatch> search(String query, Recipe.Language language, int limit) {
+        return recipeRepository.searchText(query, language == null ? null : language.name(), limit);
+    }
+}
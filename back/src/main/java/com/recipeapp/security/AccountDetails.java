@@ -0,0 +1,38 @@
+package com.recipeapp.security;
+
+import com.recipeapp.entity.User;
+import lombok.Getter;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import java.util.Collections;
+
+/**
+ * What a password login needs to know about the account, kept from the single load
+ * done by authentication so that issuing the token reads nothing more.
+ */
+@Getter
+public class AccountDetails extends org.springframework.security.core.userdetails.User {
+    
+    private final String id;
+    private final String displayName;
+    private final User.UserRole role;
+    
+    public AccountDetails(User user) {
+        this(user.getId(), user.getEmail(), user.getPasswordHash(), user.getIsActive(), user.getUsername(), user.getRole());
+    }
+    
+    private AccountDetails(String id, String email, String password, boolean enabled, String displayName, User.UserRole role) {
+        super(email, password, enabled, true, true, true,
+              Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name())));
+        this.id = id;
+        this.displayName = displayName;
+        this.role = role;
+    }
+    
+    public AccountDetails withPassword(String password) {
+        return new AccountDetails(id, getUsername(), password, isEnabled(), displayName, role);
+    }
+    
+    public AuthenticatedUser toPrincipal() {
+        return new AuthenticatedUser(id, getUsername(), role.name());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,64 @@
+package com.recipeapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.recipeapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+
+/**
+ * Whether a user id may still authenticate with an issued token. Tokens are otherwise
+ * trusted until they expire, so this is what makes a deactivation take effect: at once
+ * on this node through {@link #evict(String)}, within the TTL everywhere else.
+ */
+@Component
+public class ActiveUserCache {
+    
+    private final Cache<String, Boolean> active;
+    private final UserRepository userRepository;
+    
+    public ActiveUserCache(@Value("${jwt.user-status.maximum-size:10000}") long maximumSize,
+                           @Value("${jwt.user-status.ttl:PT30S}") Duration ttl,
+                           UserRepository userRepository,
+                           MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.active = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, active, "activeUsers");
+    }
+    
+    public boolean isActive(String userId) {
+        return active.get(userId, id -> userRepository.findIsActiveById(id).orElse(false));
+    }
+    
+    /**
+     * Records a status just read from the database, e.g. by a successful login.
+     */
+    public void put(String userId, boolean isActive) {
+        active.put(userId, isActive);
+    }
+    
+    /**
+     * Evicts now, and once more after commit when called inside a transaction so that
+     * a concurrent request cannot re-cache the status as it was before the write.
+     */
+    public void evict(String userId) {
+        active.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    active.invalidate(userId);
+                }
+            });
+        }
+    }
+}
\ No newline at end of file
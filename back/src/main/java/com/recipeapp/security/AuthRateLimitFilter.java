@@ -0,0 +1,189 @@
+package com.recipeapp.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate limits the open authentication endpoints before any user lookup or password
+ * hashing happens: one token bucket per client IP, and one per target email so that a
+ * distributed attack on a single account is slowed down as well. Rejections are
+ * answered with 429 and a Retry-After header.
+ *
+ * <p>The client IP is the remote address as the container sees it; behind a proxy,
+ * {@code server.forward-headers-strategy} must be set for it to be the real client.</p>
+ */
+@Component
+public class AuthRateLimitFilter extends OncePerRequestFilter {
+    
+    private static final String AUTH_PATH = "/api/auth/";
+    private static final int MAX_BODY_BYTES = 8192;
+    
+    private final boolean enabled;
+    private final TokenBucketLimiter byIp;
+    private final TokenBucketLimiter byEmail;
+    private final ObjectMapper objectMapper;
+    private final Counter rejectedByIp;
+    private final Counter rejectedByEmail;
+    
+    public AuthRateLimitFilter(@Value("${security.rate-limit.enabled:true}") boolean enabled,
+                               @Value("${security.rate-limit.ip.capacity:20}") int ipCapacity,
+                               @Value("${security.rate-limit.ip.refill-period:PT1M}") Duration ipRefillPeriod,
+                               @Value("${security.rate-limit.email.capacity:5}") int emailCapacity,
+                               @Value("${security.rate-limit.email.refill-period:PT1M}") Duration emailRefillPeriod,
+                               @Value("${security.rate-limit.maximum-keys:100000}") long maximumKeys,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.byIp = new TokenBucketLimiter(ipCapacity, ipRefillPeriod, maximumKeys);
+        this.byEmail = new TokenBucketLimiter(emailCapacity, emailRefillPeriod, maximumKeys);
+        this.objectMapper = objectMapper;
+        this.rejectedByIp = Counter.builder("security.rate-limit.rejected").tag("key", "ip").register(meterRegistry);
+        this.rejectedByEmail = Counter.builder("security.rate-limit.rejected").tag("key", "email").register(meterRegistry);
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !enabled || !"POST".equals(request.getMethod()) || !path.startsWith(AUTH_PATH);
+    }
+    
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        
+        // The IP bucket first: it needs nothing from the body
+        long wait = byIp.tryAcquire(request.getRemoteAddr());
+        if (wait > 0) {
+            rejectedByIp.increment();
+            reject(response, wait);
+            return;
+        }
+        
+        byte[] body = request.getInputStream().readNBytes(MAX_BODY_BYTES + 1);
+        if (body.length > MAX_BODY_BYTES) {
+            response.setStatus(HttpStatus.PAYLOAD_TOO_LARGE.value());
+            return;
+        }
+        
+        String email = emailOf(body);
+        if (email != null) {
+            wait = byEmail.tryAcquire(email);
+            if (wait > 0) {
+                rejectedByEmail.increment();
+                reject(response, wait);
+                return;
+            }
+        }
+        
+        filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    }
+    
+    private String emailOf(byte[] body) {
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException | RuntimeException e) {
+            // Malformed bodies are the controller's to reject
+            return null;
+        }
+    }
+    
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long seconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                Map.of("error", "Too many requests", "message", "Too many attempts, retry in " + seconds + "s"));
+    }
+    
+    /**
+     * Replays a body that was read up front, so that the controller can read it again.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        
+        private final byte[] body;
+        
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+        
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+                
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+                
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+                
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+                
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException("Body already read");
+                }
+            };
+        }
+        
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+        
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+        
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
\ No newline at end of file
@@ -1,60 +1,100 @@
 package com.recipeapp.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.recipeapp.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
 
+/**
+ * Issues and verifies tokens. The HMAC key and the parser are built once; a token is
+ * verified once and its claims are then served from a small cache, bounded in size and
+ * never kept past the token's own expiry.
+ *
+ * <p>Tokens carry the user id and role next to the email subject, so that a request
+ * can be authorized from the token alone.</p>
+ */
 @Service
 public class JwtService {
     
-    @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatShouldBeAtLeast256BitsLong}")
-    private String secret;
+    static final String USER_ID_CLAIM = "uid";
+    static final String ROLE_CLAIM = "role";
     
-    @Value("${jwt.expiration:86400000}")
-    private Long expiration;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final Long expiration;
+    private final Cache<String, TokenClaims> validatedTokens;
     
-    private SecretKey getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    public JwtService(@Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatShouldBeAtLeast256BitsLong}") String secret,
+                      @Value("${jwt.expiration:86400000}") Long expiration,
+                      @Value("${jwt.cache.maximum-size:10000}") long cacheMaximumSize,
+                      @Value("${jwt.cache.ttl:PT5M}") Duration cacheTtl,
+                      MeterRegistry meterRegistry) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parser().verifyWith(signingKey).build();
+        this.expiration = expiration;
+        this.validatedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfter(new UntilTokenExpiry(cacheTtl))
+                // Maintenance is cheap for a cache this size; running it inline keeps evictions deterministic
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, validatedTokens, "jwtTokens");
     }
     
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    /**
+     * Verifies the signature and expiry of {@code token} and returns its claims.
+     *
+     * @throws JwtException if the token is malformed, tampered with, expired or without expiry
+     */
+    public TokenClaims parseToken(String token) {
+        TokenClaims cached = validatedTokens.getIfPresent(token);
+        if (cached != null) {
+            // The cache entry dies with the token, this only covers the last tick
+            if (cached.isExpired(Instant.now())) {
+                validatedTokens.invalidate(token);
+                throw new ExpiredJwtException(null, null, "JWT expired at " + cached.expiresAt());
+            }
+            return cached;
+        }
+        
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        // The parser only checks an expiry that is there; a token without one would never expire
+        if (claims.getExpiration() == null) {
+            throw new JwtException("JWT has no expiration");
+        }
+        TokenClaims parsed = new TokenClaims(claims.getSubject(), claims.get(USER_ID_CLAIM, String.class),
+                claims.get(ROLE_CLAIM, String.class), claims.getExpiration().toInstant());
+        validatedTokens.put(token, parsed);
+        return parsed;
     }
     
-    public Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public String generateToken(User user) {
+        return generateToken(new AuthenticatedUser(user.getId(), user.getEmail(), user.getRole().name()));
     }
     
-    public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
-    }
-    
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
-    }
-    
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(AuthenticatedUser user) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+        claims.put(USER_ID_CLAIM, user.id());
+        claims.put(ROLE_CLAIM, user.role());
+        return createToken(claims, user.email());
     }
     
     private String createToken(Map<String, Object> claims, String subject) {
@@ -63,12 +103,26 @@ public class JwtService {
                 .subject(subject)
                 .issuedAt(new Date(System.currentTimeMillis()))
                 .expiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
     
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    private record UntilTokenExpiry(Duration ttl) implements Expiry<String, TokenClaims> {
+        
+        @Override
+        public long expireAfterCreate(String token, TokenClaims claims, long currentTime) {
+            long untilExpiry = Duration.between(Instant.now(), claims.expiresAt()).toNanos();
+            return Math.max(0, Math.min(ttl.toNanos(), untilExpiry));
+        }
+        
+        @Override
+        public long expireAfterUpdate(String token, TokenClaims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(token, claims, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String token, TokenClaims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
\ No newline at end of file
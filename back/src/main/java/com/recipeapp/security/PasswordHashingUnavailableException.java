@@ -0,0 +1,12 @@
+package com.recipeapp.security;
+
+/**
+ * Thrown instead of queueing more password hashing once the hashing pool and its
+ * queue are full; answered with 503 so that clients back off and retry.
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+    
+    public PasswordHashingUnavailableException() {
+        super("Password hashing unavailable, retry later");
+    }
+}
\ No newline at end of file
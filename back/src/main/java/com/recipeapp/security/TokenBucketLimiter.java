@@ -0,0 +1,60 @@
+package com.recipeapp.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by string, lock-free and bounded in memory.
+ *
+ * <p>Each bucket is a single {@code AtomicLong}: the time at which it would be full
+ * again (the generic cell rate algorithm). Taking a token pushes that time forward by
+ * one refill interval with a CAS; the request is refused when it would end up more
+ * than {@code capacity} intervals ahead of now. A bucket idle for a whole refill
+ * period is full again and indistinguishable from a new one, so it may be evicted.</p>
+ */
+public class TokenBucketLimiter {
+    
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+    
+    /**
+     * @param capacity tokens available in a burst
+     * @param refillPeriod time to refill an empty bucket completely
+     * @param maximumKeys buckets kept at most, the least recently used are dropped first
+     */
+    public TokenBucketLimiter(int capacity, Duration refillPeriod, long maximumKeys) {
+        this.intervalNanos = Math.max(1, refillPeriod.toNanos() / capacity);
+        this.burstNanos = intervalNanos * capacity;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(refillPeriod)
+                .build();
+    }
+    
+    /**
+     * Takes one token for {@code key}. Returns 0 when granted, otherwise the time in
+     * nanoseconds until a token will be available; nothing is taken in that case.
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        AtomicLong fullAt = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = fullAt.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long ahead = next - now;
+            if (ahead > burstNanos) {
+                return ahead - burstNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+    
+    public long size() {
+        return buckets.estimatedSize();
+    }
+}
\ No newline at end of file
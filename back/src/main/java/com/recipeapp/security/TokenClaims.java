@@ -0,0 +1,18 @@
+package com.recipeapp.security;
+
+import java.time.Instant;
+
+/**
+ * The parts of a verified token the application uses, read once per token. Tokens
+ * issued before the id and role claims existed carry neither and are not accepted.
+ */
+public record TokenClaims(String subject, String userId, String role, Instant expiresAt) {
+    
+    public boolean isExpired(Instant now) {
+        return !expiresAt.isAfter(now);
+    }
+    
+    public boolean hasIdentity() {
+        return subject != null && userId != null && role != null;
+    }
+}
\ No newline at end of file
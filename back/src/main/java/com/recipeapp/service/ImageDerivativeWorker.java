@@ -0,0 +1,162 @@
+package com.recipeapp.service;
+
+import com.recipeapp.entity.Image;
+import com.recipeapp.entity.ImageDerivativeJob;
+import com.recipeapp.entity.ImageSize;
+import com.recipeapp.repository.ImageDerivativeJobRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import javax.imageio.ImageIO;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders the derivative sizes of uploaded images in the background. Uploads enqueue
+ * one job per size of their type's profile, in image_derivative_jobs, in the upload's
+ * transaction; this worker claims pending jobs no faster than its bounded pool can take
+ * them, so that a burst of uploads waits in the table, not in memory.
+ *
+ * <p>A claim is a lease: a job still RUNNING after {@code lease}, because its node died
+ * or was stopped mid-render, is claimed again by whichever node polls first. A failed
+ * job goes back to PENDING until it has been tried {@code max-attempts} times.</p>
+ *
+ * <p>Content no installed ImageIO reader decodes, WebP on a stock JDK, gets no jobs at
+ * all: its derivative URLs redirect to the original.</p>
+ */
+@Slf4j
+@Component
+public class ImageDerivativeWorker {
+    
+    private static final int MAX_ERROR_LENGTH = 1000;
+    
+    private final ImageDerivativeJobRepository jobRepository;
+    private final ImageStorage imageStorage;
+    private final Map<Image.ImageType, List<ImageSize>> profiles = new EnumMap<>(Image.ImageType.class);
+    private final ThreadPoolExecutor executor;
+    private final Duration lease;
+    private final int maxAttempts;
+    private final float jpegQuality;
+    
+    public ImageDerivativeWorker(ImageDerivativeJobRepository jobRepository,
+                                 ImageStorage imageStorage,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${images.derivatives.profiles.stock:THUMB,CARD,FULL}") List<ImageSize> stock,
+                                 @Value("${images.derivatives.profiles.private:THUMB,CARD,FULL}") List<ImageSize> privateImages,
+                                 @Value("${images.derivatives.profiles.step-by-step:THUMB,CARD}") List<ImageSize> stepByStep,
+                                 @Value("${images.derivatives.pool-size:0}") int poolSize,
+                                 @Value("${images.derivatives.queue-capacity:32}") int queueCapacity,
+                                 @Value("${images.derivatives.lease:PT10M}") Duration lease,
+                                 @Value("${images.derivatives.max-attempts:3}") int maxAttempts,
+                                 @Value("${images.derivatives.jpeg-quality:0.82}") float jpegQuality) {
+        this.jobRepository = jobRepository;
+        this.imageStorage = imageStorage;
+        profiles.put(Image.ImageType.STOCK, List.copyOf(stock));
+        profiles.put(Image.ImageType.PRIVATE, List.copyOf(privateImages));
+        profiles.put(Image.ImageType.STEP_BY_STEP, List.copyOf(stepByStep));
+        this.lease = lease;
+        this.maxAttempts = maxAttempts;
+        this.jpegQuality = jpegQuality;
+        
+        // Decoding is CPU and memory hungry: by default half the CPUs, leaving the rest to requests
+        int threads = poolSize > 0 ? poolSize : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), runnable -> {
+                Thread thread = new Thread(runnable, "image-derivatives-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "imageDerivatives");
+    }
+    
+    public List<ImageSize> getProfile(Image.ImageType imageType) {
+        return profiles.get(imageType);
+    }
+    
+    /**
+     * Adds the jobs of the type's profile for the content, unless it already has them or
+     * cannot be decoded here. Joins the caller's transaction, so the jobs commit with the
+     * image.
+     */
+    public void enqueue(String contentHash, String contentType, Image.ImageType imageType) {
+        if (!canDecode(contentType)) {
+            log.debug("No image reader for {}, no derivatives of {}", contentType, contentHash);
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        for (ImageSize size : getProfile(imageType)) {
+            jobRepository.enqueue(contentHash, size.name(), now);
+        }
+    }
+    
+    public static boolean canDecode(String contentType) {
+        return contentType != null && ImageIO.getImageReadersByMIMEType(contentType).hasNext();
+    }
+    
+    /**
+     * Claims as many runnable jobs as the pool's queue has room for and submits them.
+     * Returns the number submitted.
+     */
+    @Scheduled(fixedDelayString = "${images.derivatives.poll-interval:PT2S}")
+    public synchronized int processPending() {
+        int capacity = executor.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return 0;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime staleBefore = now.minus(lease);
+        int submitted = 0;
+        for (ImageDerivativeJob job : jobRepository.findClaimable(staleBefore, PageRequest.ofSize(capacity))) {
+            // Another node may have claimed it since it was read
+            if (jobRepository.claim(job.getId(), now, staleBefore)) {
+                executor.execute(() -> render(job, job.getAttempts() + 1));
+                submitted++;
+            }
+        }
+        return submitted;
+    }
+    
+    private void render(ImageDerivativeJob job, int attempt) {
+        String hash = job.getContentHash();
+        ImageSize size = job.getSize();
+        try {
+            // Rendered before a crash that left the job RUNNING: nothing left to do
+            if (!Files.exists(imageStorage.resolveDerivative(hash, size))) {
+                imageStorage.storeDerivative(hash, size,
+                    target -> ImageResizer.writeJpeg(imageStorage.resolve(hash), size.getMaxEdge(), jpegQuality, target));
+            }
+            jobRepository.finish(job.getId(), ImageDerivativeJob.Status.DONE, null, LocalDateTime.now());
+        } catch (Exception e) {
+            ImageDerivativeJob.Status status = attempt >= maxAttempts
+                ? ImageDerivativeJob.Status.FAILED
+                : ImageDerivativeJob.Status.PENDING;
+            log.warn("Image derivative {} of {} failed, attempt {} of {}", size, hash, attempt, maxAttempts, e);
+            String error = String.valueOf(e);
+            jobRepository.finish(job.getId(), status,
+                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error, LocalDateTime.now());
+        }
+    }
+    
+    /**
+     * Jobs interrupted here stay RUNNING and are claimed again once their lease expires.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
\ No newline at end of file
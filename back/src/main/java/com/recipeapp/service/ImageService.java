@@ -0,0 +1,104 @@
+package com.recipeapp.service;
+
+import com.recipeapp.dto.ImageResponse;
+import com.recipeapp.entity.Image;
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.repository.ImageRepository;
+import com.recipeapp.repository.RecipeRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+@Slf4j
+@Service
+public class ImageService {
+    
+    private static final int MAX_NAME_LENGTH = 255;
+    
+    private final ImageRepository imageRepository;
+    private final RecipeRepository recipeRepository;
+    private final ImageStorage imageStorage;
+    private final EntityManager entityManager;
+    private final ImageDerivativeWorker derivativeWorker;
+    private final TransactionTemplate transactionTemplate;
+    
+    public ImageService(ImageRepository imageRepository,
+                        RecipeRepository recipeRepository,
+                        ImageStorage imageStorage,
+                        EntityManager entityManager,
+                        ImageDerivativeWorker derivativeWorker,
+                        PlatformTransactionManager transactionManager) {
+        this.imageRepository = imageRepository;
+        this.recipeRepository = recipeRepository;
+        this.imageStorage = imageStorage;
+        this.entityManager = entityManager;
+        this.derivativeWorker = derivativeWorker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    /**
+     * Stores an uploaded image and attaches it to the recipe. Ownership is checked before
+     * the upload is read, and no transaction, hence no connection, is held while it is:
+     * the image row is inserted once the content is safely in the store, together with
+     * the jobs rendering its derivative sizes.
+     */
+    public ImageResponse addImage(String recipeId, InputStream content, String originalFilename, String displayName,
+                                  Image.ImageType imageType, String userId) throws IOException {
+        String ownerId = recipeRepository.findActiveOwnerId(recipeId)
+            .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        if (!ownerId.equals(userId)) {
+            throw new RuntimeException("Unauthorized to add images to this recipe");
+        }
+        
+        ImageStorage.StoredImage stored = imageStorage.store(content);
+        if (stored.deduplicated()) {
+            log.debug("Image upload for recipe {} deduplicated to {}", recipeId, stored.hash());
+        }
+        
+        String name = nameOf(originalFilename);
+        Image image = new Image();
+        image.setName(name);
+        image.setDisplayName(StringUtils.hasText(displayName) ? truncate(displayName.strip()) : name);
+        image.setAttachment(ImageStorage.key(stored.hash()));
+        image.setContentHash(stored.hash());
+        image.setContentType(stored.contentType());
+        image.setSizeBytes(stored.size());
+        image.setImageType(imageType);
+        transactionTemplate.executeWithoutResult(status -> {
+            // A proxy is enough to set the foreign key, the recipe is never loaded
+            image.setRecipe(entityManager.getReference(Recipe.class, recipeId));
+            imageRepository.save(image);
+            derivativeWorker.enqueue(stored.hash(), stored.contentType(), imageType);
+        });
+        return toResponse(image, recipeId);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<ImageResponse> getImages(String recipeId) {
+        return imageRepository.findByRecipeIdAndIsActiveTrueOrderByCreatedAtAscIdAsc(recipeId).stream()
+            .map(image -> toResponse(image, recipeId))
+            .toList();
+    }
+    
+    private static String nameOf(String originalFilename) {
+        // The client's file name without any client path, which is not ours to trust
+        String name = StringUtils.getFilename(StringUtils.cleanPath(originalFilename == null ? "" : originalFilename));
+        return StringUtils.hasText(name) ? truncate(name.strip()) : "upload";
+    }
+    
+    private static String truncate(String value) {
+        return value.length() > MAX_NAME_LENGTH ? value.substring(0, MAX_NAME_LENGTH) : value;
+    }
+    
+    private static ImageResponse toResponse(Image image, String recipeId) {
+        return new ImageResponse(image.getId(), recipeId, image.getDisplayName(), image.getName(), image.getImageType(),
+            image.getContentHash(), image.getContentType(), image.getSizeBytes(), image.getCreatedAt());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,212 @@
+package com.recipeapp.service;
+
+import com.recipeapp.entity.ImageSize;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed store of image files: each distinct content is written once, under
+ * the hex SHA-256 of its bytes, whatever the number of images referring to it.
+ *
+ * <p>An upload is streamed through the digest into a temporary file of the store, a
+ * bounded chunk at a time, then renamed to its address. The rename is atomic, so a
+ * file at an address is always complete, and two concurrent uploads of the same
+ * content both end with the one file.</p>
+ */
+@Component
+public class ImageStorage {
+    
+    private static final int TRANSFER_CHUNK = 64 * 1024;
+    private static final int SNIFF_LENGTH = 12;
+    private static final Pattern SHA_256_HEX = Pattern.compile("[0-9a-f]{64}");
+    
+    private final Path root;
+    private final Path incoming;
+    private final long maxSize;
+    
+    public ImageStorage(@Value("${images.storage.root:data/images}") String root,
+                        @Value("${images.storage.max-size:20MB}") DataSize maxSize) throws IOException {
+        // The real path, which the container's sendfile requires of the files it serves
+        this.root = Files.createDirectories(Path.of(root)).toRealPath();
+        // Inside the root, so that the final move is a rename on the same file system
+        this.incoming = Files.createDirectories(this.root.resolve("incoming"));
+        this.maxSize = maxSize.toBytes();
+    }
+    
+    /**
+     * Stores the stream's content unless an identical one is already stored, and
+     * returns its address. The stream is read to the end but not closed.
+     */
+    public StoredImage store(InputStream content) throws IOException {
+        MessageDigest digest = sha256();
+        Path temp = Files.createTempFile(incoming, "upload-", ".part");
+        try {
+            long size = copy(new DigestInputStream(content, digest), temp);
+            String contentType = sniffContentType(temp);
+            String hash = HexFormat.of().formatHex(digest.digest());
+            
+            Path target = resolve(hash);
+            boolean existed = Files.exists(target);
+            if (!existed) {
+                Files.createDirectories(target.getParent());
+                // Replaces a concurrent upload of the same content, byte for byte the same file
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return new StoredImage(hash, contentType, size, existed);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    public static boolean isAddress(String hash) {
+        return hash != null && SHA_256_HEX.matcher(hash).matches();
+    }
+    
+    /**
+     * Path of the content stored under the hash, fanned out over two directory levels.
+     */
+    public Path resolve(String hash) {
+        if (!isAddress(hash)) {
+            throw new IllegalArgumentException("Not a SHA-256 content address: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+    
+    /**
+     * Path of a derivative of the content stored under the hash, one tree per size.
+     */
+    public Path resolveDerivative(String hash, ImageSize size) {
+        if (!isAddress(hash)) {
+            throw new IllegalArgumentException("Not a SHA-256 content address: " + hash);
+        }
+        return root.resolve("derived").resolve(size.key())
+            .resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ".jpg");
+    }
+    
+    /**
+     * Stores a derivative the writer renders into a temporary file, which then replaces
+     * any previous rendering atomically: a derivative on disk is always complete.
+     */
+    public void storeDerivative(String hash, ImageSize size, ContentWriter writer) throws IOException {
+        Path target = resolveDerivative(hash, size);
+        Path temp = Files.createTempFile(incoming, "derivative-", ".part");
+        try {
+            writer.write(temp);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+    
+    /**
+     * Relative form of {@link #resolve}, kept in the images table as the attachment.
+     */
+    public static String key(String hash) {
+        return hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash;
+    }
+    
+    private long copy(InputStream content, Path temp) throws IOException {
+        ReadableByteChannel source = Channels.newChannel(content);
+        try (FileChannel target = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            long size = 0;
+            long transferred;
+            while ((transferred = target.transferFrom(source, size, TRANSFER_CHUNK)) > 0) {
+                size += transferred;
+                if (size > maxSize) {
+                    throw new RuntimeException("Invalid image: larger than " + maxSize + " bytes");
+                }
+            }
+            // On disk before it gets an address, which is then trusted as is
+            target.force(true);
+            return size;
+        }
+    }
+    
+    /**
+     * Media type of stored content, sniffed again rather than looked up: a content
+     * address is all that is needed to serve it.
+     */
+    public String contentTypeOf(String hash) throws IOException {
+        return sniffContentType(resolve(hash));
+    }
+    
+    private static String sniffContentType(Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(SNIFF_LENGTH);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // Files shorter than the header match no format below
+            int read;
+            do {
+                read = channel.read(header);
+            } while (read > 0 && header.hasRemaining());
+        }
+        byte[] bytes = Arrays.copyOf(header.array(), header.position());
+        
+        if (startsWith(bytes, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(bytes, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(bytes, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(bytes, 0, 'R', 'I', 'F', 'F') && startsWith(bytes, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        // The declared type is not trusted: only known formats are stored and served back
+        throw new RuntimeException("Invalid image: not a JPEG, PNG, GIF or WebP file");
+    }
+    
+    private static boolean startsWith(byte[] bytes, int offset, int... expected) {
+        if (bytes.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is required of every JVM", e);
+        }
+    }
+    
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(Path target) throws IOException;
+    }
+    
+    /**
+     * Address, sniffed type and size of stored content; {@code deduplicated} when
+     * identical content was already there.
+     */
+    public record StoredImage(String hash, String contentType, long size, boolean deduplicated) {
+    }
+}
\ No newline at end of file
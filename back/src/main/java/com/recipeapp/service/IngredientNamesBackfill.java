@@ -0,0 +1,97 @@
+package com.recipeapp.service;
+
+import com.recipeapp.entity.IngredientNames;
+import com.recipeapp.entity.Recipe;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills recipe_ingredients for recipes written before it existed. The names go through
+ * {@link IngredientNames#normalize}, as on every write and every query, rather than
+ * through SQL: unaccent() folds letters NFD leaves alone (œ, æ, ß), and a row folded
+ * differently from its queries is never found. Runs at startup, by keyset batches of
+ * recipes that have an ingredient list but no rows, each locked while it is filled.
+ */
+@Slf4j
+@Component
+public class IngredientNamesBackfill {
+    
+    private static final int BATCH_SIZE = 100;
+    
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    public IngredientNamesBackfill(EntityManager entityManager,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void backfillOnStartup() {
+        int backfilled = backfill();
+        if (backfilled > 0) {
+            log.info("Backfilled recipe_ingredients for {} recipes", backfilled);
+        }
+    }
+    
+    /**
+     * Backfills every recipe without ingredient rows and returns the number of recipes
+     * that got some.
+     */
+    public int backfill() {
+        int backfilled = 0;
+        String after = "";
+        while (true) {
+            String from = after;
+            List<Recipe> batch = transactionTemplate.execute(status -> entityManager.createQuery(
+                    "SELECT r FROM Recipe r WHERE r.id > :after AND r.ingredientsList IS NOT NULL " +
+                    "AND r.ingredientNames IS EMPTY ORDER BY r.id", Recipe.class)
+                .setParameter("after", from)
+                .setMaxResults(BATCH_SIZE)
+                .getResultList());
+            if (batch.isEmpty()) {
+                return backfilled;
+            }
+            for (Recipe recipe : batch) {
+                backfilled += transactionTemplate.execute(status -> backfill(recipe.getId()));
+            }
+            after = batch.get(batch.size() - 1).getId();
+        }
+    }
+    
+    private int backfill(String recipeId) {
+        // Locked and read again: a write or another node may have filled it since the batch was read
+        Recipe recipe = entityManager.find(Recipe.class, recipeId, LockModeType.PESSIMISTIC_WRITE);
+        Integer existing = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM recipe_ingredients WHERE recipe_id = ?", Integer.class, recipeId);
+        if (recipe == null || existing == null || existing > 0) {
+            return 0;
+        }
+        List<Object[]> rows = new ArrayList<>();
+        for (String name : IngredientNames.normalizeAll(recipe.getIngredientsList())) {
+            rows.add(new Object[] {recipeId, name});
+        }
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO recipe_ingredients (recipe_id, ingredient_name_normalized) VALUES (?, ?)", rows);
+        return 1;
+    }
+}
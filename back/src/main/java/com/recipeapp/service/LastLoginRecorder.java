@@ -0,0 +1,70 @@
+package com.recipeapp.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind for {@code users.last_login_at}. Logins only record the time in memory,
+ * where repeated logins of one user collapse into the latest; a scheduled flush writes
+ * the pending times in batched UPDATEs. A crash loses at most one interval of login
+ * times, which are informational only.
+ */
+@Component
+public class LastLoginRecorder {
+    
+    private static final String UPDATE_SQL = "UPDATE users SET last_login_at = ? WHERE id = ?";
+    
+    private final Map<String, LocalDateTime> pending = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    
+    public LastLoginRecorder(JdbcTemplate jdbcTemplate,
+                             @Value("${users.last-login.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+    
+    public void record(String userId) {
+        pending.put(userId, LocalDateTime.now());
+    }
+    
+    /**
+     * Writes every pending login time and returns how many users were updated. An entry
+     * is only dropped if no newer login replaced it while the batch was being written.
+     */
+    @Scheduled(fixedDelayString = "${users.last-login.flush-interval:PT10S}")
+    public int flush() {
+        List<Map.Entry<String, LocalDateTime>> drained = new ArrayList<>(pending.entrySet().size());
+        for (Map.Entry<String, LocalDateTime> entry : pending.entrySet()) {
+            drained.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        if (drained.isEmpty()) {
+            return 0;
+        }
+        
+        jdbcTemplate.batchUpdate(UPDATE_SQL, drained, batchSize, (statement, entry) -> {
+            statement.setTimestamp(1, Timestamp.valueOf(entry.getValue()));
+            statement.setString(2, entry.getKey());
+        });
+        drained.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+        return drained.size();
+    }
+    
+    public int pendingCount() {
+        return pending.size();
+    }
+    
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,62 @@
+package com.recipeapp.service;
+
+import com.recipeapp.dto.PageResponse;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Opaque keyset cursor: the sort key and id of the last row of a page,
+ * so the next page starts strictly after it whatever its depth.
+ */
+@Getter
+@RequiredArgsConstructor
+public class PageCursor {
+    
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    
+    private static final char SEPARATOR = '\u0000';
+    
+    private final String sortKey;
+    private final String id;
+    
+    public String encode() {
+        String raw = sortKey + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public static PageCursor decode(String token) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        
+        int separator = raw.lastIndexOf(SEPARATOR);
+        if (separator < 0 || separator == raw.length() - 1) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        return new PageCursor(raw.substring(0, separator), raw.substring(separator + 1));
+    }
+    
+    public static int clampPageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+    
+    /**
+     * Cuts a result fetched with {@code pageSize + 1} rows down to one page,
+     * the extra row only telling whether a next page exists.
+     */
+    public static <T> PageResponse<T> slice(List<T> rows, int pageSize, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= pageSize) {
+            return new PageResponse<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new PageResponse<>(items, cursorOf.apply(items.get(pageSize - 1)).encode());
+    }
+}
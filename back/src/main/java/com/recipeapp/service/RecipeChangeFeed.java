@@ -0,0 +1,158 @@
+package com.recipeapp.service;
+
+import com.recipeapp.entity.RecipeChange;
+import com.recipeapp.entity.RecipeChangeCursor;
+import com.recipeapp.repository.RecipeChangeCursorRepository;
+import com.recipeapp.repository.RecipeChangeRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Transactional outbox of recipe writes, so that every node keeps its in-process caches
+ * and search indexes in step with writes handled by the others.
+ *
+ * <p>Each local {@link RecipeChangedEvent} is recorded in recipe_changes just before its
+ * transaction commits, so a change is in the feed if and only if the write committed.
+ * Every node polls the feed past its own cursor and republishes the other nodes'
+ * changes as remote events, then moves its cursor: delivery is at least once, and the
+ * listeners, which evict or reload by id, do not mind a repeat.</p>
+ *
+ * <p>Ids are allocated at insert, a moment before commit, so a change with a lower id
+ * can still be committing when a higher one becomes visible. The poller only consumes
+ * changes older than {@code settle-delay}, which must exceed that commit time plus the
+ * clock skew between nodes.</p>
+ */
+@Slf4j
+@Component
+public class RecipeChangeFeed {
+    
+    private final RecipeChangeRepository changeRepository;
+    private final RecipeChangeCursorRepository cursorRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final String nodeId;
+    private final Duration settleDelay;
+    private final int batchSize;
+    private final Duration retention;
+    private volatile long cursor;
+    
+    public RecipeChangeFeed(RecipeChangeRepository changeRepository,
+                            RecipeChangeCursorRepository cursorRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${recipes.change-feed.enabled:true}") boolean enabled,
+                            @Value("${recipes.change-feed.node-id:${random.uuid}}") String nodeId,
+                            @Value("${recipes.change-feed.settle-delay:PT2S}") Duration settleDelay,
+                            @Value("${recipes.change-feed.batch-size:500}") int batchSize,
+                            @Value("${recipes.change-feed.retention:P1D}") Duration retention) {
+        this.changeRepository = changeRepository;
+        this.cursorRepository = cursorRepository;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.nodeId = nodeId;
+        this.settleDelay = settleDelay;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+    
+    /**
+     * Resumes from the node's stored cursor, or starts at the head of the feed: the
+     * caches and indexes of a new node are built from the database, not from the feed.
+     */
+    @PostConstruct
+    void initCursor() {
+        if (!enabled) {
+            return;
+        }
+        cursor = cursorRepository.findById(nodeId)
+            .map(RecipeChangeCursor::getLastChangeId)
+            .orElseGet(changeRepository::findMaxId);
+        cursorRepository.save(new RecipeChangeCursor(nodeId, cursor, LocalDateTime.now()));
+    }
+    
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void record(RecipeChangedEvent event) {
+        if (!enabled || event.isRemote() || event.getRecipeIds().isEmpty()) {
+            return;
+        }
+        RecipeChange change = new RecipeChange();
+        change.setOriginNode(nodeId);
+        change.setRecipeIds(new ArrayList<>(event.getRecipeIds()));
+        changeRepository.save(change);
+    }
+    
+    /**
+     * Applies the settled changes past the cursor, written by other nodes, as one remote
+     * event, then stores the new cursor. Returns the number of changes applied. If a
+     * listener fails, the cursor stays put and the same changes are retried next time.
+     */
+    @Scheduled(fixedDelayString = "${recipes.change-feed.poll-interval:PT1S}")
+    public synchronized int poll() {
+        if (!enabled) {
+            return 0;
+        }
+        
+        LocalDateTime settledBefore = LocalDateTime.now().minus(settleDelay);
+        long last = cursor;
+        int applied = 0;
+        Set<String> recipeIds = new LinkedHashSet<>();
+        for (RecipeChange change : changeRepository.findByIdGreaterThanOrderByIdAsc(cursor, PageRequest.ofSize(batchSize))) {
+            if (change.getCreatedAt().isAfter(settledBefore)) {
+                // Anything past this one may still have a lower id committing behind it
+                break;
+            }
+            if (!nodeId.equals(change.getOriginNode())) {
+                recipeIds.addAll(change.getRecipeIds());
+                applied++;
+            }
+            last = change.getId();
+        }
+        
+        if (!recipeIds.isEmpty()) {
+            eventPublisher.publishEvent(RecipeChangedEvent.remote(List.copyOf(recipeIds)));
+        }
+        if (last != cursor) {
+            cursorRepository.save(new RecipeChangeCursor(nodeId, last, LocalDateTime.now()));
+            cursor = last;
+        }
+        return applied;
+    }
+    
+    /**
+     * Drops changes older than the retention, and the cursors of nodes that stopped
+     * polling as long ago. A node lagging further behind than the retention misses
+     * changes, which its cache TTL then bounds.
+     */
+    @Scheduled(fixedDelayString = "${recipes.change-feed.purge-interval:PT1H}")
+    public void purge() {
+        if (!enabled) {
+            return;
+        }
+        LocalDateTime before = LocalDateTime.now().minus(retention);
+        int changes = changeRepository.deleteCreatedBefore(before);
+        int cursors = cursorRepository.deleteUpdatedBefore(before);
+        if (changes > 0 || cursors > 0) {
+            log.debug("Purged {} recipe changes and {} idle cursors", changes, cursors);
+        }
+    }
+    
+    public String getNodeId() {
+        return nodeId;
+    }
+    
+    public long getCursor() {
+        return cursor;
+    }
+}
\ No newline at end of file
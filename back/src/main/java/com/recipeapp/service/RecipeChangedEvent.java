@@ -0,0 +1,36 @@
+package com.recipeapp.service;
+
+import lombok.Getter;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Published whenever recipes are created, updated or deleted. Listeners reload
+ * the recipes by id, so the event only says which ones changed, not how.
+ *
+ * <p>Remote events replay a write committed by another node, read from the change
+ * feed; they are published outside any transaction and are not recorded again.</p>
+ */
+@Getter
+public class RecipeChangedEvent {
+    
+    private final Collection<String> recipeIds;
+    private final boolean remote;
+    
+    public RecipeChangedEvent(Collection<String> recipeIds) {
+        this(recipeIds, false);
+    }
+    
+    private RecipeChangedEvent(Collection<String> recipeIds, boolean remote) {
+        this.recipeIds = recipeIds;
+        this.remote = remote;
+    }
+    
+    public static RecipeChangedEvent of(String recipeId) {
+        return new RecipeChangedEvent(List.of(recipeId));
+    }
+    
+    public static RecipeChangedEvent remote(Collection<String> recipeIds) {
+        return new RecipeChangedEvent(recipeIds, true);
+    }
+}
\ No newline at end of file
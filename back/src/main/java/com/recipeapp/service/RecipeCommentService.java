@@ -0,0 +1,78 @@
+package com.recipeapp.service;
+
+import com.recipeapp.dto.CommentResponse;
+import com.recipeapp.dto.PageResponse;
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.entity.RecipeComment;
+import com.recipeapp.entity.User;
+import com.recipeapp.repository.RecipeCommentRepository;
+import com.recipeapp.repository.RecipeRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class RecipeCommentService {
+    
+    public static final int MAX_BODY_LENGTH = 2000;
+    
+    private final RecipeCommentRepository recipeCommentRepository;
+    private final RecipeRepository recipeRepository;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * Appends a comment. The increment of the recipe's comment count also tells whether
+     * the recipe exists and is active; the recipe itself is never loaded, and its version
+     * and cached response are left alone. The change event lets the indexes, on every
+     * node, pick up the new count, which weighs the recipe's name in autocompletion.
+     */
+    @Transactional
+    public CommentResponse addComment(String recipeId, String body, String userId) {
+        if (body == null || body.isBlank()) {
+            throw new RuntimeException("Invalid comment: body must not be blank");
+        }
+        if (body.length() > MAX_BODY_LENGTH) {
+            throw new RuntimeException("Invalid comment: body must be at most " + MAX_BODY_LENGTH + " characters");
+        }
+        if (recipeRepository.incrementCommentCount(recipeId) == 0) {
+            throw new RuntimeException("Recipe not found");
+        }
+        
+        RecipeComment comment = new RecipeComment();
+        comment.setRecipe(entityManager.getReference(Recipe.class, recipeId));
+        comment.setAuthor(entityManager.getReference(User.class, userId));
+        comment.setBody(body.strip());
+        recipeCommentRepository.save(comment);
+        eventPublisher.publishEvent(RecipeChangedEvent.of(recipeId));
+        return new CommentResponse(comment.getId(), comment.getAuthor().getUsername(), comment.getBody(), comment.getCreatedAt());
+    }
+    
+    @Transactional(readOnly = true)
+    public PageResponse<CommentResponse> getComments(String recipeId, String cursor, int limit) {
+        int pageSize = PageCursor.clampPageSize(limit);
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+        
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+        List<CommentResponse> rows = after == null
+            ? recipeCommentRepository.findPage(recipeId, pageable)
+            : recipeCommentRepository.findPageAfter(recipeId, parseCreatedAt(after.getSortKey()), after.getId(), pageable);
+        return PageCursor.slice(rows, pageSize, comment -> new PageCursor(comment.getCreatedAt().toString(), comment.getId()));
+    }
+    
+    private static LocalDateTime parseCreatedAt(String sortKey) {
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (DateTimeParseException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.recipeapp.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.recipeapp.dto.ImportRecordResult;
+import com.recipeapp.dto.ImportReport;
+import com.recipeapp.dto.RecipeRequest;
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bulk creation of recipes from a stream of records. Records are read one at a time,
+ * validated, and persisted in chunks of {@code recipes.import.chunk-size}, each chunk in
+ * its own transaction: UUIDs are generated in memory, so Hibernate sends the inserts
+ * as JDBC batches, and the persistence context is cleared after every chunk so that
+ * memory stays flat however long the input.
+ *
+ * <p>A chunk that fails to commit is reported record by record and the import goes on
+ * with the next one; already committed chunks stay imported.</p>
+ */
+@Slf4j
+@Service
+public class RecipeImportService {
+    
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    
+    public RecipeImportService(EntityManager entityManager,
+                               PlatformTransactionManager transactionManager,
+                               Validator validator,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${recipes.import.chunk-size:500}") int chunkSize) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+    
+    public ImportReport importRecipes(MappingIterator<RecipeRequest> records, Function<RecipeRequest, Recipe> toEntity,
+                                      String userId) throws IOException {
+        List<ImportRecordResult> results = new ArrayList<>();
+        List<Pending> chunk = new ArrayList<>(chunkSize);
+        int index = 0;
+        
+        while (true) {
+            RecipeRequest request;
+            try {
+                if (!records.hasNextValue()) {
+                    break;
+                }
+                request = records.nextValue();
+            } catch (JsonParseException e) {
+                // The stream itself is broken: nothing after this point can be trusted
+                results.add(invalid(index, "Malformed JSON, import stopped: " + e.getOriginalMessage()));
+                break;
+            } catch (JsonMappingException e) {
+                // A well-formed record of the wrong shape; the iterator skips to the next one
+                results.add(invalid(index++, e.getOriginalMessage()));
+                continue;
+            }
+            
+            List<String> errors = validator.validate(request).stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .toList();
+            if (!errors.isEmpty()) {
+                results.add(new ImportRecordResult(index++, ImportRecordResult.Status.INVALID, null, errors));
+                continue;
+            }
+            
+            ImportRecordResult result = new ImportRecordResult(index++, null, null, null);
+            results.add(result);
+            chunk.add(new Pending(toEntity.apply(request), result));
+            if (chunk.size() == chunkSize) {
+                persist(chunk, userId);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            persist(chunk, userId);
+        }
+        
+        int imported = (int) results.stream().filter(result -> result.getStatus() == ImportRecordResult.Status.IMPORTED).count();
+        return new ImportReport(imported, results.size() - imported, results);
+    }
+    
+    private void persist(List<Pending> chunk, String userId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                // A proxy is enough to set the foreign key, the owner is never loaded
+                User user = entityManager.getReference(User.class, userId);
+                for (Pending pending : chunk) {
+                    Recipe recipe = pending.recipe();
+                    recipe.setUser(user);
+                    recipe.setIsActive(true);
+                    if (recipe.getLanguage() == null) {
+                        recipe.setLanguage(Recipe.Language.EN);
+                    }
+                    entityManager.persist(recipe);
+                }
+                entityManager.flush();
+                entityManager.clear();
+                // One event for the whole chunk, applied to the indexes after commit
+                eventPublisher.publishEvent(new RecipeChangedEvent(chunk.stream().map(pending -> pending.recipe().getId()).toList()));
+            });
+            chunk.forEach(pending -> {
+                pending.result().setStatus(ImportRecordResult.Status.IMPORTED);
+                pending.result().setId(pending.recipe().getId());
+            });
+        } catch (RuntimeException e) {
+            log.warn("Recipe import chunk of {} records failed", chunk.size(), e);
+            chunk.forEach(pending -> {
+                pending.result().setStatus(ImportRecordResult.Status.FAILED);
+                pending.result().setErrors(List.of("Chunk rolled back: " + e.getMessage()));
+            });
+        }
+    }
+    
+    private static ImportRecordResult invalid(int index, String error) {
+        return new ImportRecordResult(index, ImportRecordResult.Status.INVALID, null, List.of(error));
+    }
+    
+    private record Pending(Recipe recipe, ImportRecordResult result) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.recipeapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.recipeapp.dto.RecipeResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded cache of rendered recipes keyed by recipe id.
+ * Concurrent misses on the same id wait for a single load.
+ */
+@Component
+public class RecipeResponseCache {
+    
+    private final Cache<String, RecipeResponse> cache;
+    
+    public RecipeResponseCache(@Value("${recipes.cache.maximum-size:10000}") long maximumSize,
+                               @Value("${recipes.cache.ttl:PT10M}") Duration ttl,
+                               MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "recipeResponses");
+    }
+    
+    public RecipeResponse get(String id, Function<String, RecipeResponse> loader) {
+        return cache.get(id, loader);
+    }
+    
+    public RecipeResponse getIfPresent(String id) {
+        return cache.getIfPresent(id);
+    }
+    
+    /**
+     * Evicts now, and once more after commit when called inside a transaction so that
+     * a concurrent miss cannot re-cache the row as it was before the write.
+     */
+    public void evict(String id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+    
+    // Local writes evict directly; writes made on other nodes arrive through the change feed
+    @EventListener(condition = "#event.remote")
+    public void onRemoteChange(RecipeChangedEvent event) {
+        cache.invalidateAll(event.getRecipeIds());
+    }
+    
+    public CacheStats stats() {
+        return cache.stats();
+    }
+}
@@ -1,13 +1,43 @@
 package com.recipeapp.service;
 
+import com.recipeapp.dto.AutocompleteResponse;
+import com.recipeapp.dto.FacetedSearchResponse;
+import com.recipeapp.dto.IngredientMatch;
+import com.recipeapp.dto.PageResponse;
+import com.recipeapp.dto.PantrySearchResult;
+import com.recipeapp.dto.RecipeSearchCriteria;
+import com.recipeapp.dto.RecipeSummary;
+import com.recipeapp.dto.TextSearchResult;
+import com.recipeapp.entity.IngredientNames;
 import com.recipeapp.entity.Recipe;
 import com.recipeapp.entity.User;
 import com.recipeapp.repository.RecipeRepository;
+import com.recipeapp.repository.RecipeSearchRepository.FacetCount;
 import com.recipeapp.repository.UserRepository;
+import com.recipeapp.search.AutocompleteIndex;
+import com.recipeapp.search.FuzzyNameIndex;
+import com.recipeapp.search.IngredientSetIndex;
+import com.recipeapp.search.PantryMatch;
+import com.recipeapp.search.RecipeNameSearch;
+import com.recipeapp.search.RecipeTextSearch;
+import com.recipeapp.search.TextMatch;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -15,6 +45,14 @@ public class RecipeService {
     
     private final RecipeRepository recipeRepository;
     private final UserRepository userRepository;
+    private final EntityManager entityManager;
+    private final RecipeResponseCache recipeResponseCache;
+    private final RecipeNameSearch recipeNameSearch;
+    private final RecipeTextSearch recipeTextSearch;
+    private final IngredientSetIndex ingredientSetIndex;
+    private final AutocompleteIndex autocompleteIndex;
+    private final FuzzyNameIndex fuzzyNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
     
     @Transactional
     public Recipe createRecipe(Recipe recipe, String userId) {
@@ -22,7 +60,9 @@ public class RecipeService {
             .orElseThrow(() -> new RuntimeException("User not found"));
         recipe.setUser(user);
         recipe.setIsActive(true);
-        return recipeRepository.save(recipe);
+        Recipe savedRecipe = recipeRepository.save(recipe);
+        eventPublisher.publishEvent(RecipeChangedEvent.of(savedRecipe.getId()));
+        return savedRecipe;
     }
     
     @Transactional(readOnly = true)
@@ -30,17 +70,61 @@ public class RecipeService {
         return recipeRepository.findByIsActiveTrue();
     }
     
+    @Transactional(readOnly = true)
+    public PageResponse<Recipe> getActiveRecipesPage(String cursor, int limit) {
+        return keysetPage(cursor, limit,
+            recipeRepository::findActivePage,
+            (after, pageable) -> recipeRepository.findActivePageAfter(after.getSortKey(), after.getId(), pageable),
+            recipe -> new PageCursor(recipe.getName(), recipe.getId()));
+    }
+    
+    @Transactional(readOnly = true)
+    public PageResponse<RecipeSummary> getActiveRecipeSummariesPage(String cursor, int limit) {
+        return keysetPage(cursor, limit,
+            recipeRepository::findActiveSummaryPage,
+            (after, pageable) -> recipeRepository.findActiveSummaryPageAfter(after.getSortKey(), after.getId(), pageable),
+            summary -> new PageCursor(summary.getName(), summary.getId()));
+    }
+    
+    /**
+     * Hands every matching active recipe to {@code sink} while scrolling the result set.
+     * The persistence context is cleared every fetch batch so memory stays flat
+     * whatever the catalog size.
+     */
+    @Transactional(readOnly = true)
+    public void forEachActiveRecipe(Recipe.Language language, Recipe.RecipeType recipeType, Consumer<Recipe> sink) {
+        try (Stream<Recipe> recipes = recipeRepository.streamActive(language, recipeType)) {
+            int[] count = {0};
+            recipes.forEach(recipe -> {
+                sink.accept(recipe);
+                if (++count[0] % RecipeRepository.EXPORT_FETCH_SIZE == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+    
     @Transactional(readOnly = true)
     public Recipe getRecipeById(String id) {
-        return recipeRepository.findById(id)
+        return recipeRepository.findWithUserById(id)
             .orElseThrow(() -> new RuntimeException("Recipe not found"));
     }
     
+    @Transactional(readOnly = true)
+    public Optional<Long> getRecipeVersion(String id) {
+        return recipeRepository.findVersionById(id);
+    }
+    
     @Transactional(readOnly = true)
     public List<Recipe> getRecipesByUser(String userId) {
         return recipeRepository.findByUserId(userId);
     }
     
+    @Transactional(readOnly = true)
+    public List<RecipeSummary> getRecipeSummariesByUser(String userId) {
+        return recipeRepository.findSummariesByUserId(userId);
+    }
+    
     @Transactional
     public Recipe updateRecipe(String id, Recipe updatedRecipe, String userId) {
         Recipe recipe = recipeRepository.findById(id)
@@ -61,9 +145,38 @@ public class RecipeService {
         recipe.setExternalLinks(updatedRecipe.getExternalLinks());
         recipe.setLanguage(updatedRecipe.getLanguage());
         
+        recipeResponseCache.evict(id);
+        eventPublisher.publishEvent(RecipeChangedEvent.of(id));
         return recipeRepository.save(recipe);
     }
     
+    /**
+     * Applies {@code changes} to the recipe if it is still at {@code expectedVersion}
+     * (any version when null). Only the columns that actually changed are written, and
+     * the flush checks the version again, so a concurrent write in between fails with
+     * an optimistic locking exception instead of being overwritten.
+     */
+    @Transactional
+    public Recipe patchRecipe(String id, Long expectedVersion, Consumer<Recipe> changes, String userId) {
+        Recipe recipe = recipeRepository.findById(id)
+            .orElseThrow(() -> new RuntimeException("Recipe not found"));
+        
+        if (!recipe.getUser().getId().equals(userId)) {
+            throw new RuntimeException("Unauthorized to update this recipe");
+        }
+        if (expectedVersion != null && !expectedVersion.equals(recipe.getVersion())) {
+            throw new RuntimeException("Precondition failed: recipe is at version " + recipe.getVersion());
+        }
+        
+        changes.accept(recipe);
+        
+        // Flushed here so that a conflict surfaces now and the response carries the new version
+        Recipe savedRecipe = recipeRepository.saveAndFlush(recipe);
+        recipeResponseCache.evict(id);
+        eventPublisher.publishEvent(RecipeChangedEvent.of(id));
+        return savedRecipe;
+    }
+    
     @Transactional
     public void deleteRecipe(String id, String userId) {
         Recipe recipe = recipeRepository.findById(id)
@@ -74,21 +187,167 @@ public class RecipeService {
         }
         
         recipe.setIsActive(false);
+        recipeResponseCache.evict(id);
+        eventPublisher.publishEvent(RecipeChangedEvent.of(id));
         recipeRepository.save(recipe);
     }
     
     @Transactional(readOnly = true)
-    public List<Recipe> searchByName(String keyword) {
-        return recipeRepository.searchByName(keyword);
+    public List<Recipe> searchByName(String keyword, int limit, boolean fuzzy) {
+        List<String> ids = searchNameIds(keyword, limit, fuzzy);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return inSearchOrder(ids, recipeRepository.findByIdInAndIsActiveTrue(ids), Recipe::getId);
     }
     
     @Transactional(readOnly = true)
-    public List<Recipe> searchByIngredient(String ingredient) {
-        return recipeRepository.searchByIngredient(ingredient);
+    public List<Recipe> searchByIngredients(List<String> ingredients, IngredientMatch match) {
+        Set<String> names = IngredientNames.normalizeAll(ingredients);
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        return match == IngredientMatch.ALL
+            ? recipeRepository.findByAllIngredients(names, names.size())
+            : recipeRepository.findByAnyIngredient(names);
     }
     
     @Transactional(readOnly = true)
     public List<Recipe> searchByType(Recipe.RecipeType recipeType) {
         return recipeRepository.findByRecipeType(recipeType);
     }
+    
+    @Transactional(readOnly = true)
+    public List<RecipeSummary> searchSummariesByName(String keyword, int limit, boolean fuzzy) {
+        List<String> ids = searchNameIds(keyword, limit, fuzzy);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        return inSearchOrder(ids, recipeRepository.findActiveSummariesByIdIn(ids), RecipeSummary::getId);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<RecipeSummary> searchSummariesByIngredients(List<String> ingredients, IngredientMatch match) {
+        Set<String> names = IngredientNames.normalizeAll(ingredients);
+        if (names.isEmpty()) {
+            return List.of();
+        }
+        return match == IngredientMatch.ALL
+            ? recipeRepository.findSummariesByAllIngredients(names, names.size())
+            : recipeRepository.findSummariesByAnyIngredient(names);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<RecipeSummary> searchSummariesByType(Recipe.RecipeType recipeType) {
+        return recipeRepository.findSummariesByRecipeType(recipeType);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<TextSearchResult> searchText(String query, Recipe.Language language, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        List<TextMatch> matches = recipeTextSearch.search(query, language, PageCursor.clampPageSize(limit));
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<String, RecipeSummary> summaries = recipeRepository
+            .findActiveSummariesByIdIn(matches.stream().map(TextMatch::getId).toList())
+            .stream()
+            .collect(Collectors.toMap(RecipeSummary::getId, Function.identity()));
+        return matches.stream()
+            .filter(match -> summaries.containsKey(match.getId()))
+            .map(match -> new TextSearchResult(summaries.get(match.getId()), match.getRank(),
+                TextMatch.toHtml(match.getSnippet())))
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * Combined search: one keyset page of summaries plus both facets, the facets
+     * folded from a single GROUP BY over (recipeType, language).
+     */
+    @Transactional(readOnly = true)
+    public FacetedSearchResponse search(RecipeSearchCriteria criteria, String cursor, int limit) {
+        int pageSize = PageCursor.clampPageSize(limit);
+        PageCursor after = cursor == null || cursor.isBlank() ? null : PageCursor.decode(cursor);
+        List<RecipeSummary> rows = recipeRepository.searchSummaries(criteria,
+            after == null ? null : after.getSortKey(), after == null ? null : after.getId(), pageSize + 1);
+        PageResponse<RecipeSummary> page = PageCursor.slice(rows, pageSize,
+            summary -> new PageCursor(summary.getName(), summary.getId()));
+        
+        Map<Recipe.RecipeType, Long> recipeTypes = new EnumMap<>(Recipe.RecipeType.class);
+        Map<Recipe.Language, Long> languages = new EnumMap<>(Recipe.Language.class);
+        for (Recipe.RecipeType type : Recipe.RecipeType.values()) {
+            recipeTypes.put(type, 0L);
+        }
+        for (Recipe.Language language : Recipe.Language.values()) {
+            languages.put(language, 0L);
+        }
+        for (FacetCount facet : recipeRepository.countFacets(criteria)) {
+            // Each facet ignores its own filter but honours the other one
+            if (criteria.getLanguage() == null || criteria.getLanguage() == facet.language()) {
+                recipeTypes.merge(facet.recipeType(), facet.count(), Long::sum);
+            }
+            if (criteria.getRecipeType() == null || criteria.getRecipeType() == facet.recipeType()) {
+                languages.merge(facet.language(), facet.count(), Long::sum);
+            }
+        }
+        return new FacetedSearchResponse(page.getItems(), page.getNext(), recipeTypes, languages);
+    }
+    
+    // Served from memory only, no transaction needed
+    public AutocompleteResponse autocomplete(String prefix, int limit) {
+        int size = Math.max(1, Math.min(limit, AutocompleteIndex.MAX_SUGGESTIONS));
+        return new AutocompleteResponse(autocompleteIndex.completeRecipeNames(prefix, size),
+                                        autocompleteIndex.completeIngredients(prefix, size));
+    }
+    
+    @Transactional(readOnly = true)
+    public List<PantrySearchResult> searchByPantry(List<String> pantry, int maxMissing, int limit) {
+        List<PantryMatch> matches = ingredientSetIndex.match(pantry, Math.max(0, maxMissing), PageCursor.clampPageSize(limit));
+        if (matches.isEmpty()) {
+            return List.of();
+        }
+        Map<String, RecipeSummary> summaries = recipeRepository
+            .findActiveSummariesByIdIn(matches.stream().map(PantryMatch::recipeId).toList())
+            .stream()
+            .collect(Collectors.toMap(RecipeSummary::getId, Function.identity()));
+        return matches.stream()
+            .filter(match -> summaries.containsKey(match.recipeId()))
+            .map(match -> new PantrySearchResult(summaries.get(match.recipeId()), match.matched(),
+                                                 match.missing(), match.missingIngredients()))
+            .collect(Collectors.toList());
+    }
+    
+    private List<String> searchNameIds(String keyword, int limit, boolean fuzzy) {
+        int size = PageCursor.clampPageSize(limit);
+        return fuzzy ? fuzzyNameIndex.searchIds(keyword, size) : recipeNameSearch.searchIds(keyword, size);
+    }
+    
+    private <T> PageResponse<T> keysetPage(String cursor, int limit,
+                                           Function<Pageable, List<T>> firstPage,
+                                           KeysetQuery<T> pageAfter,
+                                           Function<T, PageCursor> cursorOf) {
+        int pageSize = PageCursor.clampPageSize(limit);
+        Pageable pageable = PageRequest.ofSize(pageSize + 1);
+        
+        List<T> rows = cursor == null || cursor.isBlank()
+            ? firstPage.apply(pageable)
+            : pageAfter.find(PageCursor.decode(cursor), pageable);
+        return PageCursor.slice(rows, pageSize, cursorOf);
+    }
+    
+    /**
+     * Puts rows loaded by id back into the ranking of the search engine, dropping ids
+     * the database no longer reports as active.
+     */
+    private static <T> List<T> inSearchOrder(List<String> rankedIds, List<T> rows, Function<T, String> idOf) {
+        Map<String, T> byId = rows.stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return rankedIds.stream().map(byId::get).filter(Objects::nonNull).collect(Collectors.toList());
+    }
+    
+    @FunctionalInterface
+    private interface KeysetQuery<T> {
+        List<T> find(PageCursor after, Pageable pageable);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.recipeapp.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import java.sql.ResultSet;
+
+/**
+ * Adds what the PostgreSQL search engine needs and Hibernate's ddl-auto cannot declare:
+ * the pg_trgm extension, the generated {@code recipes.search_vector} column, and the GIN
+ * indexes of the name and full-text searches, with the definitions of
+ * init_database_schema.sql. A database created by ddl-auto, or by an older script, would
+ * otherwise fail every search. Runs at startup and does nothing on other databases.
+ *
+ * <p>Every step is checked first and idempotent, so an up-to-date schema is not locked,
+ * and nodes starting together do not mind each other. Adding the column rewrites the
+ * table under an exclusive lock, once.</p>
+ */
+@Slf4j
+@Component
+public class SearchSchemaMigrator {
+    
+    private static final String SEARCH_VECTOR =
+        "setweight(to_tsvector(CASE WHEN language = 'FR' THEN 'french'::regconfig ELSE 'english'::regconfig END, coalesce(name, '')), 'A') || " +
+        "setweight(to_tsvector(CASE WHEN language = 'FR' THEN 'french'::regconfig ELSE 'english'::regconfig END, coalesce(creator_comment, '')), 'B') || " +
+        "setweight(to_tsvector(CASE WHEN language = 'FR' THEN 'french'::regconfig ELSE 'english'::regconfig END, coalesce(instructions, '')), 'C')";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    public SearchSchemaMigrator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrateOnStartup() {
+        int changes = migrate();
+        if (changes > 0) {
+            log.info("Applied {} search schema changes to recipes", changes);
+        }
+    }
+    
+    /**
+     * Creates whatever is missing and returns the number of objects created.
+     */
+    public int migrate() {
+        if (!isPostgreSql()) {
+            return 0;
+        }
+        
+        int changes = 0;
+        if (!exists("SELECT count(*) FROM pg_extension WHERE extname = 'pg_trgm'")) {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            changes++;
+        }
+        if (!searchVectorExists()) {
+            jdbcTemplate.execute("ALTER TABLE recipes ADD COLUMN IF NOT EXISTS search_vector TSVECTOR " +
+                                 "GENERATED ALWAYS AS (" + SEARCH_VECTOR + ") STORED");
+            changes++;
+        }
+        changes += createIndexIfMissing("idx_recipes_name_trgm",
+            "ON recipes USING gin (LOWER(name) gin_trgm_ops) WHERE is_active = true");
+        changes += createIndexIfMissing("idx_recipes_search_vector", "ON recipes USING gin (search_vector)");
+        return changes;
+    }
+    
+    private int createIndexIfMissing(String name, String definition) {
+        if (exists("SELECT count(*) FROM pg_class WHERE relname = '" + name + "' AND relkind = 'i'")) {
+            return 0;
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + name + " " + definition);
+        return 1;
+    }
+    
+    private boolean exists(String countQuery) {
+        Integer count = jdbcTemplate.queryForObject(countQuery, Integer.class);
+        return count != null && count > 0;
+    }
+    
+    private boolean isPostgreSql() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+            "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+    }
+    
+    private boolean searchVectorExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet columns = connection.getMetaData().getColumns(null, null, "recipes", "search_vector")) {
+                return columns.next();
+            }
+        }));
+    }
+}
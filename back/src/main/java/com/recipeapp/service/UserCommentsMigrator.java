@@ -0,0 +1,204 @@
+package com.recipeapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.entity.RecipeComment;
+import com.recipeapp.entity.User;
+import com.recipeapp.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Moves the legacy {@code recipes.user_comments} jsonb lists into recipe_comments. It
+ * runs at startup, before the search indexes are built from the comment counts, and
+ * does nothing once the column is gone. Each recipe is migrated in its own transaction
+ * that also clears its list, so an interrupted run simply resumes where it stopped;
+ * when no list is left the column can be dropped.
+ *
+ * <p>Nodes starting together all run it: the transaction re-reads the list with
+ * {@code FOR UPDATE} and skips the recipe if another node has cleared it meanwhile, so
+ * that each list is moved exactly once.</p>
+ */
+@Slf4j
+@Component
+public class UserCommentsMigrator {
+    
+    private static final String LEGACY_COLUMN = "user_comments";
+    private static final int BATCH_SIZE = 100;
+    private static final String[] BODY_KEYS = {"comment", "text", "content", "body"};
+    private static final String[] DATE_KEYS = {"createdAt", "date"};
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    
+    public UserCommentsMigrator(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                EntityManager entityManager,
+                                UserRepository userRepository,
+                                ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void migrateOnStartup() {
+        int migrated = migrate();
+        if (migrated > 0) {
+            log.info("Migrated {} user comments from recipes.{} to recipe_comments", migrated, LEGACY_COLUMN);
+        }
+    }
+    
+    /**
+     * Migrates every recipe still holding a legacy list and returns the number of
+     * comments moved.
+     */
+    public int migrate() {
+        if (!legacyColumnExists()) {
+            return 0;
+        }
+        
+        int migrated = 0;
+        while (true) {
+            List<String> batch = jdbcTemplate.queryForList(
+                "SELECT id FROM recipes WHERE " + LEGACY_COLUMN + " IS NOT NULL LIMIT " + BATCH_SIZE, String.class);
+            if (batch.isEmpty()) {
+                return migrated;
+            }
+            for (String recipeId : batch) {
+                migrated += transactionTemplate.execute(status -> migrate(recipeId));
+            }
+        }
+    }
+    
+    private int migrate(String recipeId) {
+        // Claims the list until commit; empty when another node has already moved it
+        List<LegacyComments> locked = jdbcTemplate.query(
+            "SELECT id, " + LEGACY_COLUMN + ", created_at FROM recipes WHERE id = ? AND " + LEGACY_COLUMN + " IS NOT NULL " +
+            "FOR UPDATE",
+            (rs, row) -> new LegacyComments(rs.getString(1), rs.getString(2), toLocalDateTime(rs.getTimestamp(3))),
+            recipeId);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        LegacyComments legacy = locked.get(0);
+        List<JsonNode> entries = parse(legacy);
+        LocalDateTime fallback = legacy.createdAt() != null ? legacy.createdAt() : LocalDateTime.now();
+        Recipe recipe = entityManager.getReference(Recipe.class, legacy.recipeId());
+        
+        for (int i = 0; i < entries.size(); i++) {
+            JsonNode entry = entries.get(i);
+            RecipeComment comment = new RecipeComment();
+            comment.setRecipe(recipe);
+            comment.setAuthor(authorOf(entry));
+            comment.setBody(bodyOf(entry));
+            // Undated entries keep their list order, one microsecond apart
+            LocalDateTime createdAt = createdAtOf(entry);
+            comment.setCreatedAt(createdAt != null ? createdAt : fallback.plusNanos(i * 1_000L));
+            entityManager.persist(comment);
+        }
+        entityManager.flush();
+        
+        jdbcTemplate.update("UPDATE recipes SET comment_count = comment_count + ?, " + LEGACY_COLUMN + " = NULL WHERE id = ?",
+            entries.size(), legacy.recipeId());
+        return entries.size();
+    }
+    
+    private List<JsonNode> parse(LegacyComments legacy) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(legacy.json());
+        } catch (JsonProcessingException e) {
+            // Kept verbatim rather than lost
+            log.warn("Unreadable user comments on recipe {}, migrated as a single comment", legacy.recipeId());
+            return List.of(objectMapper.getNodeFactory().textNode(legacy.json()));
+        }
+        
+        List<JsonNode> entries = new ArrayList<>();
+        if (root.isArray()) {
+            root.forEach(entries::add);
+        } else if (!root.isNull()) {
+            entries.add(root);
+        }
+        return entries;
+    }
+    
+    private User authorOf(JsonNode entry) {
+        JsonNode userId = entry.get("userId");
+        if (userId == null || !userId.isTextual() || !userRepository.existsById(userId.asText())) {
+            return null;
+        }
+        return entityManager.getReference(User.class, userId.asText());
+    }
+    
+    private String bodyOf(JsonNode entry) {
+        if (entry.isTextual()) {
+            return entry.asText();
+        }
+        for (String key : BODY_KEYS) {
+            JsonNode value = entry.get(key);
+            if (value != null && value.isTextual() && !value.asText().isBlank()) {
+                return value.asText();
+            }
+        }
+        return entry.toString();
+    }
+    
+    private static LocalDateTime createdAtOf(JsonNode entry) {
+        for (String key : DATE_KEYS) {
+            JsonNode value = entry.get(key);
+            if (value == null || !value.isTextual()) {
+                continue;
+            }
+            try {
+                return LocalDateTime.parse(value.asText());
+            } catch (DateTimeParseException e) {
+                try {
+                    return OffsetDateTime.parse(value.asText()).toLocalDateTime();
+                } catch (DateTimeParseException ignored) {
+                    // Try the next key, then fall back to the recipe's creation time
+                }
+            }
+        }
+        return null;
+    }
+    
+    private boolean legacyColumnExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet columns = connection.getMetaData().getColumns(null, null, "recipes", LEGACY_COLUMN)) {
+                return columns.next();
+            }
+        }));
+    }
+    
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+    
+    private record LegacyComments(String recipeId, String json, LocalDateTime createdAt) {
+    }
+}
\ No newline at end of file
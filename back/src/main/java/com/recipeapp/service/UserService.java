@@ -2,11 +2,11 @@ package com.recipeapp.service;
 
 import com.recipeapp.entity.User;
 import com.recipeapp.repository.UserRepository;
+import com.recipeapp.security.ActiveUserCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -15,6 +15,7 @@ public class UserService {
     
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ActiveUserCache activeUserCache;
     
     @Transactional
     public User createUser(String email, String password, String username, User.UserRole role) {
@@ -85,12 +86,7 @@ public class UserService {
         User user = getUserById(userId);
         user.setIsActive(false);
         userRepository.save(user);
-    }
-    
-    @Transactional
-    public void updateLastLogin(String userId) {
-        User user = getUserById(userId);
-        user.setLastLoginAt(LocalDateTime.now());
-        userRepository.save(user);
+        // Issued tokens stay valid until they expire; the status check is what revokes them
+        activeUserCache.evict(userId);
     }
 }
\ No newline at end of file
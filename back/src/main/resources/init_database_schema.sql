@@ -4,6 +4,9 @@ CREATE DATABASE recipedb;
 -- Connect to the database
 \c recipedb;
 
+-- Extensions
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
 -- Create Users Table
 CREATE TABLE users (
     id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
@@ -29,11 +32,53 @@ CREATE TABLE recipes (
     recipe_type VARCHAR(50) NOT NULL,
     creator_rating INTEGER CHECK (creator_rating >= 1 AND creator_rating <= 5),
     creator_comment TEXT,
-    user_comments JSONB,
+    -- Denormalized COUNT(*) of recipe_comments, maintained by an atomic increment
+    comment_count INTEGER NOT NULL DEFAULT 0,
     external_links JSONB,
     is_active BOOLEAN NOT NULL DEFAULT true,
     user_id UUID NOT NULL REFERENCES users(id) ON DELETE CASCADE,
-    language VARCHAR(5) NOT NULL DEFAULT 'EN'
+    language VARCHAR(5) NOT NULL DEFAULT 'EN',
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Optimistic lock, bumped by every UPDATE made through JPA
+    version BIGINT NOT NULL DEFAULT 0,
+    -- Full-text document, stemmed with the recipe's own language: name > comment > instructions
+    search_vector TSVECTOR GENERATED ALWAYS AS (
+        setweight(to_tsvector(CASE WHEN language = 'FR' THEN 'french'::regconfig ELSE 'english'::regconfig END, coalesce(name, '')), 'A') ||
+        setweight(to_tsvector(CASE WHEN language = 'FR' THEN 'french'::regconfig ELSE 'english'::regconfig END, coalesce(creator_comment, '')), 'B') ||
+        setweight(to_tsvector(CASE WHEN language = 'FR' THEN 'french'::regconfig ELSE 'english'::regconfig END, coalesce(instructions, '')), 'C')
+    ) STORED
+);
+
+-- Create Recipe Ingredients Table (normalized names from recipes.ingredients_list)
+CREATE TABLE recipe_ingredients (
+    recipe_id UUID NOT NULL REFERENCES recipes(id) ON DELETE CASCADE,
+    ingredient_name_normalized VARCHAR(255) NOT NULL,
+    PRIMARY KEY (recipe_id, ingredient_name_normalized)
+);
+
+-- Create Recipe Comments Table (append-only)
+CREATE TABLE recipe_comments (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    recipe_id UUID NOT NULL REFERENCES recipes(id) ON DELETE CASCADE,
+    author_id UUID REFERENCES users(id) ON DELETE SET NULL,
+    body TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create Recipe Changes Table (outbox of recipe writes, replayed by the other nodes)
+CREATE TABLE recipe_changes (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    origin_node VARCHAR(64) NOT NULL,
+    recipe_ids JSONB NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Create Recipe Change Cursors Table (last change applied by each node)
+CREATE TABLE recipe_change_cursors (
+    node_id VARCHAR(64) PRIMARY KEY,
+    last_change_id BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
 );
 
 -- Create Images Table
@@ -42,6 +87,9 @@ CREATE TABLE images (
     display_name VARCHAR(255) NOT NULL,
     name VARCHAR(255) NOT NULL,
     attachment VARCHAR(500) NOT NULL,
+    content_hash VARCHAR(64),
+    content_type VARCHAR(255),
+    size_bytes BIGINT,
     image_type VARCHAR(20) NOT NULL,
     is_active BOOLEAN NOT NULL DEFAULT true,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
@@ -49,6 +97,20 @@ CREATE TABLE images (
     recipe_id UUID REFERENCES recipes(id) ON DELETE CASCADE
 );
 
+-- Create Image Derivative Jobs Table (sizes of stored images to render, the workers' queue)
+CREATE TABLE image_derivative_jobs (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    content_hash VARCHAR(64) NOT NULL,
+    size_key VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(1000),
+    claimed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT uk_image_derivative_jobs_hash_size UNIQUE (content_hash, size_key)
+);
+
 -- Create Indexes for Performance
 CREATE INDEX idx_users_email ON users(email);
 CREATE INDEX idx_users_role ON users(role);
@@ -57,7 +119,18 @@ CREATE INDEX idx_recipes_recipe_type ON recipes(recipe_type);
 CREATE INDEX idx_recipes_language ON recipes(language);
 CREATE INDEX idx_recipes_is_active ON recipes(is_active);
 CREATE INDEX idx_recipes_name ON recipes(name);
+-- Keyset pagination of active recipes ordered by (name, id)
+CREATE INDEX idx_recipes_active_name_id ON recipes(name, id) WHERE is_active = true;
+-- Substring search on names (LIKE '%kw%' and similarity ordering)
+CREATE INDEX idx_recipes_name_trgm ON recipes USING gin (LOWER(name) gin_trgm_ops) WHERE is_active = true;
+CREATE INDEX idx_recipes_search_vector ON recipes USING gin (search_vector);
+CREATE INDEX idx_recipe_ingredients_name ON recipe_ingredients(ingredient_name_normalized, recipe_id);
 CREATE INDEX idx_images_recipe_id ON images(recipe_id);
+CREATE INDEX idx_images_content_hash ON images(content_hash);
+CREATE INDEX idx_image_derivative_jobs_status_id ON image_derivative_jobs(status, id);
+CREATE INDEX idx_recipe_changes_created_at ON recipe_changes(created_at);
+-- Keyset pages of a recipe's comments, newest first
+CREATE INDEX idx_recipe_comments_recipe_created_id ON recipe_comments(recipe_id, created_at, id);
 
 -- Insert Sample Admin User (password: admin123)
 INSERT INTO users (email, password_hash, username, role, is_active)
@@ -85,4 +158,7 @@ VALUES (
     5,
     'EN',
     (SELECT id FROM users WHERE email = 'user@recipeapp.com')
-);
\ No newline at end of file
+);
+
+-- recipe_ingredients is filled at startup by IngredientNamesBackfill, with the normal form of
+-- IngredientNames: unaccent() folds œ, æ and ß, which queries and later writes do not
@@ -1,19 +1,27 @@
 package com.recipeapp;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.recipeapp.dto.AuthRequest;
+import com.recipeapp.dto.AuthResponse;
 import com.recipeapp.entity.User;
 import com.recipeapp.repository.ImageRepository;
 import com.recipeapp.repository.RecipeRepository;
 import com.recipeapp.repository.UserRepository;
+import com.recipeapp.search.RecipeIndexMaintainer;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
 @SpringBootTest
 @AutoConfigureMockMvc
 @ActiveProfiles("test")
@@ -38,6 +46,9 @@ public abstract class BaseIntegrationTest {
     @Autowired
     protected PasswordEncoder passwordEncoder;
     
+    @Autowired
+    protected RecipeIndexMaintainer recipeIndexMaintainer;
+    
     protected User testUser;
     protected User testAdmin;
     protected String userToken;
@@ -74,6 +85,34 @@ public abstract class BaseIntegrationTest {
         testAdmin = userRepository.save(testAdmin);
     }
     
+    /**
+     * The in-process search indexes are only updated after commit, which never
+     * happens in these rolled-back tests: rebuild them from the current data.
+     */
+    protected void rebuildRecipeIndexes() {
+        recipeIndexMaintainer.rebuildAll();
+    }
+    
+    protected MockHttpServletRequestBuilder loginRequest(String email, String password) {
+        AuthRequest request = new AuthRequest();
+        request.setEmail(email);
+        request.setPassword(password);
+        return post("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(request));
+    }
+    
+    protected String loginAndGetToken(String email, String password) {
+        try {
+            String response = mockMvc.perform(loginRequest(email, password))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            return objectMapper.readValue(response, AuthResponse.class).getToken();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to get auth token", e);
+        }
+    }
+    
     protected String asJsonString(Object obj) {
         try {
             return objectMapper.writeValueAsString(obj);
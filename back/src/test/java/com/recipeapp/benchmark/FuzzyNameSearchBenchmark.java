@@ -0,0 +1,102 @@
+package com.recipeapp.benchmark;
+
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.search.FuzzyNameIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of a fuzzy name lookup, and of renaming one recipe, against synthetic catalogs
+ * of 10k, 100k and 1M names. A rename should cost the same at every size. See
+ * test_readme.md for how to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FuzzyNameSearchBenchmark {
+    
+    private static final String[] STYLES = {
+        "classic", "easy", "spicy", "creamy", "roasted", "grilled", "braised", "crispy", "vegan", "rustic",
+        "smoky", "sweet", "tangy", "homemade", "provencal", "thai", "mexican", "italian", "nordic", "summer"
+    };
+    private static final String[] INGREDIENTS = {
+        "chocolate", "strawberry", "chicken", "salmon", "tomato", "mushroom", "pumpkin", "lemon", "garlic",
+        "spinach", "almond", "coconut", "vanilla", "caramel", "beef", "lentil", "eggplant", "raspberry",
+        "pistachio", "ginger", "hazelnut", "zucchini", "apricot", "shrimp", "chickpea", "basil", "potato"
+    };
+    private static final String[] DISHES = {
+        "cake", "tart", "soup", "salad", "risotto", "curry", "stew", "pie", "cookies", "muffins", "lasagna",
+        "gratin", "bread", "pasta", "mousse", "crumble", "tacos", "burger", "quiche", "pancakes", "brownies"
+    };
+    
+    @Param({"10000", "100000", "1000000"})
+    public int catalogSize;
+    
+    private FuzzyNameIndex index;
+    private List<String> queries;
+    private int next;
+    private Random random;
+    
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        index = new FuzzyNameIndex();
+        // Filled as a full rebuild, as at startup
+        index.clear();
+        for (int i = 0; i < catalogSize; i++) {
+            index.upsert(recipe(i));
+        }
+        index.rebuilt();
+        queries = List.of("choclate cake", "strawbery tart", "chiken curry", "lasagne", "pistacio brownies",
+                          "zuchini gratin", "raspbery mouse", "gingr soup");
+    }
+    
+    @Benchmark
+    public List<String> fuzzySearch() {
+        String query = queries.get(next++ % queries.size());
+        return index.searchIds(query, 20);
+    }
+    
+    @Benchmark
+    public void rename() {
+        index.upsert(recipe(random.nextInt(catalogSize)));
+    }
+    
+    private Recipe recipe(int i) {
+        Recipe recipe = new Recipe();
+        recipe.setId("recipe-" + i);
+        // A made-up family name widens the dictionary the way real titles do
+        recipe.setName(pick(random, STYLES) + " " + pick(random, INGREDIENTS) + " " + pick(random, DISHES)
+                       + " " + syllables(random));
+        return recipe;
+    }
+    
+    private static String pick(Random random, String[] words) {
+        return words[random.nextInt(words.length)];
+    }
+    
+    private static String syllables(Random random) {
+        String[] parts = {"ka", "lo", "mi", "ren", "to", "sa", "vel", "dor", "ni", "bru", "mont", "el"};
+        StringBuilder name = new StringBuilder();
+        int count = 2 + random.nextInt(2);
+        for (int i = 0; i < count; i++) {
+            name.append(parts[random.nextInt(parts.length)]);
+        }
+        return name.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.recipeapp.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.StreamUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of sending a stored image to a socket: an InputStream copy through a heap
+ * buffer, as a controller returning a Resource does, against FileChannel.transferTo to
+ * the socket, which is sendfile, and transferTo to the socket's OutputStream, which is
+ * the image controller's fallback when the connector cannot sendfile. The socket is a
+ * loopback connection drained by a second thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ImageTransferBenchmark {
+    
+    @Param({"65536", "1048576", "16777216"})
+    public int size;
+    
+    private Path file;
+    private FileChannel channel;
+    private ServerSocketChannel server;
+    private SocketChannel socket;
+    private OutputStream socketOutput;
+    private Thread drain;
+    
+    @Setup
+    public void setUp() throws IOException {
+        byte[] content = new byte[size];
+        new Random(42).nextBytes(content);
+        file = Files.createTempFile("image-transfer", ".bin");
+        Files.write(file, content);
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        
+        server = ServerSocketChannel.open().bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        socket = SocketChannel.open(server.getLocalAddress());
+        socketOutput = socket.socket().getOutputStream();
+        SocketChannel peer = server.accept();
+        drain = new Thread(() -> {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+            try (peer) {
+                while (peer.read(buffer) >= 0) {
+                    buffer.clear();
+                }
+            } catch (IOException e) {
+                // Closed by the tear down
+            }
+        }, "image-transfer-drain");
+        drain.setDaemon(true);
+        drain.start();
+    }
+    
+    @TearDown
+    public void tearDown() throws Exception {
+        socket.close();
+        drain.join(1000);
+        server.close();
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+    
+    @Benchmark
+    public long inputStreamCopy() throws IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return StreamUtils.copy(input, socketOutput);
+        }
+    }
+    
+    @Benchmark
+    public long transferToSocket() throws IOException {
+        return transferTo(socket);
+    }
+    
+    @Benchmark
+    public long transferToOutputStream() throws IOException {
+        return transferTo(Channels.newChannel(socketOutput));
+    }
+    
+    private long transferTo(WritableByteChannel target) throws IOException {
+        long position = 0;
+        while (position < size) {
+            position += channel.transferTo(position, size - position, target);
+        }
+        return position;
+    }
+}
\ No newline at end of file
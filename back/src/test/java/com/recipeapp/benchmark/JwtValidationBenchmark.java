@@ -0,0 +1,77 @@
+package com.recipeapp.benchmark;
+
+import com.recipeapp.entity.User;
+import com.recipeapp.security.JwtService;
+import com.recipeapp.security.TokenClaims;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import javax.crypto.SecretKey;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request's token: the previous filter path (key and parser
+ * rebuilt, token parsed three times) against a single parse and a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtValidationBenchmark {
+    
+    private static final String SECRET = "benchmarkSecretKeyForJWTTokenGenerationThatShouldBeAtLeast256BitsLong";
+    
+    private JwtService uncached;
+    private JwtService cached;
+    private String token;
+    
+    @Setup
+    public void setUp() {
+        // A cache of size zero evicts immediately, so every call verifies the signature
+        uncached = new JwtService(SECRET, 86_400_000L, 0, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        cached = new JwtService(SECRET, 86_400_000L, 10_000, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        User user = new User();
+        user.setId("bench-user");
+        user.setEmail("bench@example.com");
+        token = cached.generateToken(user);
+        cached.parseToken(token);
+    }
+    
+    @Benchmark
+    public boolean previousTripleParse() {
+        // extractUsername, then validateToken: extractUsername + extractExpiration
+        String username = legacyClaims(token).getSubject();
+        return legacyClaims(token).getSubject().equals(username)
+            && !legacyClaims(token).getExpiration().before(new Date());
+    }
+    
+    @Benchmark
+    public TokenClaims singleParse() {
+        return uncached.parseToken(token);
+    }
+    
+    @Benchmark
+    public TokenClaims cachedParse() {
+        return cached.parseToken(token);
+    }
+    
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package com.recipeapp.benchmark;
+
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.search.AutocompleteIndex;
+import com.recipeapp.search.FuzzyNameIndex;
+import com.recipeapp.search.IngredientSetIndex;
+import com.recipeapp.search.RecipeIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of applying one import chunk of 500 recipes to the indexes that every search
+ * engine keeps in memory, against catalogs of 10k and 100k recipes, as
+ * RecipeIndexMaintainer does after the chunk commits. See test_readme.md for how to run it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecipeImportBatchBenchmark {
+    
+    private static final int CHUNK_SIZE = 500;
+    private static final String[] WORDS = {
+        "classic", "spicy", "creamy", "roasted", "chocolate", "strawberry", "chicken", "salmon", "tomato",
+        "mushroom", "pumpkin", "lemon", "cake", "tart", "soup", "salad", "risotto", "curry", "stew", "pie"
+    };
+    
+    @Param({"10000", "100000"})
+    public int catalogSize;
+    
+    private List<RecipeIndex> indexes;
+    private Random random;
+    
+    @Setup
+    public void setUp() {
+        random = new Random(42);
+        indexes = List.of(new AutocompleteIndex(), new FuzzyNameIndex(), new IngredientSetIndex());
+        indexes.forEach(RecipeIndex::clear);
+        for (int i = 0; i < catalogSize; i++) {
+            Recipe recipe = recipe(i);
+            indexes.forEach(index -> index.upsert(recipe));
+        }
+        indexes.forEach(RecipeIndex::rebuilt);
+    }
+    
+    /**
+     * One chunk of re-imported recipes, so that the catalog keeps its size across calls.
+     */
+    @Benchmark
+    public void applyChunk() {
+        List<Recipe> chunk = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            chunk.add(recipe(random.nextInt(catalogSize)));
+        }
+        indexes.forEach(index -> index.apply(chunk, List.of()));
+    }
+    
+    private Recipe recipe(int i) {
+        Recipe recipe = new Recipe();
+        recipe.setId("recipe-" + i);
+        recipe.setName(pick() + " " + pick() + " " + pick() + " " + i);
+        List<Map<String, Object>> ingredients = new ArrayList<>();
+        for (int j = 0; j < 8; j++) {
+            ingredients.add(Map.of("name", "ingredient " + random.nextInt(5000), "quantity", "1"));
+        }
+        recipe.setIngredientsList(ingredients);
+        recipe.setCommentCount(random.nextInt(10));
+        return recipe;
+    }
+    
+    private String pick() {
+        return WORDS[random.nextInt(WORDS.length)];
+    }
+}
@@ -3,15 +3,59 @@ package com.recipeapp.controller;
 import com.recipeapp.BaseIntegrationTest;
 import com.recipeapp.dto.AuthRequest;
 import com.recipeapp.dto.RegisterRequest;
+import com.recipeapp.security.BoundedPasswordEncoder;
+import com.recipeapp.security.JwtService;
+import com.recipeapp.security.PasswordHashingUnavailableException;
+import com.recipeapp.security.TokenClaims;
+import com.recipeapp.entity.User;
+import com.recipeapp.service.LastLoginRecorder;
+import com.recipeapp.service.UserService;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 public class AuthControllerIntegrationTest extends BaseIntegrationTest {
     
+    @Autowired
+    private JwtService jwtService;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+    
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Value("${jwt.secret}")
+    private String jwtSecret;
+    
     @Test
     public void testRegisterUser_Success() throws Exception {
         RegisterRequest request = new RegisterRequest();
@@ -116,4 +160,170 @@ public class AuthControllerIntegrationTest extends BaseIntegrationTest {
             .content(objectMapper.writeValueAsString(request)))
             .andExpect(status().isNotFound());
     }
+    
+    @Test
+    public void testToken_ParsedOnceThenServedFromCache() throws Exception {
+        String token = loginAndGetToken("test@example.com", "password123");
+        
+        mockMvc.perform(get("/api/recipes/my-recipes")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        
+        assertThat(jwtService.parseToken(token).subject()).isEqualTo("test@example.com");
+        assertThat(jwtService.parseToken(token)).isSameAs(jwtService.parseToken(token));
+    }
+    
+    @Test
+    public void testToken_TamperedSignatureRejected() throws Exception {
+        String token = loginAndGetToken("test@example.com", "password123");
+        // Not the last character, whose low bits are only base64 padding
+        int position = token.length() - 10;
+        char replacement = token.charAt(position) == 'A' ? 'B' : 'A';
+        String tampered = token.substring(0, position) + replacement + token.substring(position + 1);
+        
+        mockMvc.perform(get("/api/recipes/my-recipes")
+                .header("Authorization", "Bearer " + tampered))
+                .andExpect(status().isUnauthorized());
+        
+        mockMvc.perform(get("/api/recipes/my-recipes")
+                .header("Authorization", "Bearer not-a-token"))
+                .andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    public void testToken_ExpiredRejected() throws Exception {
+        JwtService expiredIssuer = new JwtService(jwtSecret, -60_000L, 10, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        String expired = expiredIssuer.generateToken(testUser);
+        
+        mockMvc.perform(get("/api/recipes/my-recipes")
+                .header("Authorization", "Bearer " + expired))
+                .andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    public void testToken_WithoutExpirationRejected() throws Exception {
+        // Validly signed with the application's key, but never expiring
+        String unexpiring = Jwts.builder()
+                .subject(testUser.getEmail())
+                .claim("uid", testUser.getId())
+                .claim("role", testUser.getRole().name())
+                .signWith(Keys.hmacShaKeyFor(jwtSecret.getBytes()))
+                .compact();
+        
+        assertThatThrownBy(() -> jwtService.parseToken(unexpiring)).isInstanceOf(JwtException.class);
+        mockMvc.perform(get("/api/recipes/my-recipes")
+                .header("Authorization", "Bearer " + unexpiring))
+                .andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    public void testToken_CarriesUserIdAndRole() throws Exception {
+        TokenClaims claims = jwtService.parseToken(loginAndGetToken("admin@example.com", "admin123"));
+        
+        assertThat(claims.subject()).isEqualTo("admin@example.com");
+        assertThat(claims.userId()).isEqualTo(testAdmin.getId());
+        assertThat(claims.role()).isEqualTo("ADMIN");
+    }
+    
+    @Test
+    public void testToken_RejectedOnceUserDeactivated() throws Exception {
+        String token = loginAndGetToken("test@example.com", "password123");
+        mockMvc.perform(get("/api/recipes/my-recipes")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+        
+        userService.deleteUser(testUser.getId());
+        
+        mockMvc.perform(get("/api/recipes/my-recipes")
+                .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    public void testLogin_LoadsUserOnceAndDefersLastLogin() throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        loginAndGetToken("test@example.com", "password123");
+        
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(userRepository.findById(testUser.getId()).orElseThrow().getLastLoginAt()).isNull();
+    }
+    
+    @Test
+    public void testLogin_LastLoginTimesCoalescedAndFlushedInBatch() throws Exception {
+        lastLoginRecorder.flush();
+        loginAndGetToken("test@example.com", "password123");
+        loginAndGetToken("test@example.com", "password123");
+        loginAndGetToken("admin@example.com", "admin123");
+        assertThat(lastLoginRecorder.pendingCount()).isEqualTo(2);
+        
+        assertThat(lastLoginRecorder.flush()).isEqualTo(2);
+        assertThat(lastLoginRecorder.pendingCount()).isZero();
+        
+        entityManager.clear();
+        User user = userRepository.findById(testUser.getId()).orElseThrow();
+        assertThat(user.getLastLoginAt()).isNotNull();
+        assertThat(userRepository.findById(testAdmin.getId()).orElseThrow().getLastLoginAt()).isNotNull();
+    }
+    
+    @Test
+    public void testLogin_WeakHashUpgradedOnSuccess() throws Exception {
+        testUser.setPasswordHash(new BCryptPasswordEncoder(4).encode("password123"));
+        userRepository.saveAndFlush(testUser);
+        
+        loginAndGetToken("test@example.com", "password123");
+        
+        entityManager.clear();
+        String upgraded = userRepository.findById(testUser.getId()).orElseThrow().getPasswordHash();
+        assertThat(upgraded).startsWith("$2a$05$");
+        assertThat(passwordEncoder.matches("password123", upgraded)).isTrue();
+        loginAndGetToken("test@example.com", "password123");
+    }
+    
+    @Test
+    public void testPasswordHashing_SaturatedPoolRejectsFast() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slow = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return rawPassword.toString();
+            }
+            
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return rawPassword.toString().equals(encodedPassword);
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slow, 1, 1, registry);
+        
+        try {
+            // One hash running, one queued: the pool is saturated
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (registry.get("executor.queued").gauge().value() < 1 && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            
+            assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(PasswordHashingUnavailableException.class);
+            assertThat(registry.get("security.password.hashing.rejected").counter().count()).isEqualTo(1);
+            
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("b");
+            assertThat(registry.get("security.password.hashing").tag("operation", "encode").timer().count()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            encoder.shutdown();
+        }
+    }
 }
\ No newline at end of file
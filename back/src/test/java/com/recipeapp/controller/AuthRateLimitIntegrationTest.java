@@ -0,0 +1,67 @@
+package com.recipeapp.controller;
+
+import com.recipeapp.BaseIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Runs in its own context with low limits; buckets outlive a test, so each test uses
+ * its own client addresses and emails.
+ */
+@TestPropertySource(properties = {
+    "security.rate-limit.ip.capacity=3",
+    "security.rate-limit.ip.refill-period=PT1H",
+    "security.rate-limit.email.capacity=2",
+    "security.rate-limit.email.refill-period=PT1H"
+})
+public class AuthRateLimitIntegrationTest extends BaseIntegrationTest {
+    
+    private ResultActions login(String remoteAddress, String email, String password) throws Exception {
+        return mockMvc.perform(loginRequest(email, password)
+                .with(servletRequest -> {
+                    servletRequest.setRemoteAddr(remoteAddress);
+                    return servletRequest;
+                }));
+    }
+    
+    @Test
+    public void testLogin_LimitedPerClientAddress() throws Exception {
+        login("10.0.0.1", "a@example.com", "wrong").andExpect(status().isUnauthorized());
+        login("10.0.0.1", "b@example.com", "wrong").andExpect(status().isUnauthorized());
+        login("10.0.0.1", "test@example.com", "password123").andExpect(status().isOk());
+        
+        login("10.0.0.1", "test@example.com", "password123")
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", not(emptyOrNullString())))
+                .andExpect(jsonPath("$.error").value("Too many requests"));
+        
+        // Other clients are unaffected, and get through to authentication
+        login("10.0.0.2", "c@example.com", "wrong").andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    public void testLogin_LimitedPerTargetEmailAcrossAddresses() throws Exception {
+        login("10.0.1.1", "admin@example.com", "guess1").andExpect(status().isUnauthorized());
+        login("10.0.1.2", "ADMIN@example.com", "guess2").andExpect(status().isUnauthorized());
+        
+        login("10.0.1.3", "admin@example.com", "admin123").andExpect(status().isTooManyRequests());
+        login("10.0.1.3", "d@example.com", "wrong").andExpect(status().isUnauthorized());
+    }
+    
+    @Test
+    public void testRateLimit_OnlyAppliesToAuthEndpoints() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/api/recipes/public")
+                    .with(servletRequest -> {
+                        servletRequest.setRemoteAddr("10.0.2.1");
+                        return servletRequest;
+                    }))
+                    .andExpect(status().isOk());
+        }
+    }
+}
\ No newline at end of file
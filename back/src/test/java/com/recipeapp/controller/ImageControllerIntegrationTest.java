@@ -0,0 +1,317 @@
+package com.recipeapp.controller;
+
+import com.recipeapp.entity.Image;
+import com.recipeapp.entity.ImageDerivativeJob;
+import com.recipeapp.entity.ImageSize;
+import com.recipeapp.repository.ImageDerivativeJobRepository;
+import com.recipeapp.service.ImageDerivativeWorker;
+import com.recipeapp.service.ImageStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Image serving and derivative rendering, on the image store and a database of their
+ * own. MockMvc exercises the transferTo path; the sendfile path needs a real connector,
+ * hence the server on a random port. Nothing here is transactional, so that the worker
+ * threads see the jobs the tests enqueue.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:imagesdb;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+    "images.serving.sendfile-threshold=48KB"
+})
+public class ImageControllerIntegrationTest {
+    
+    @Autowired
+    private MockMvc mockMvc;
+    
+    @Autowired
+    private ImageStorage imageStorage;
+    
+    @Autowired
+    private ImageDerivativeWorker derivativeWorker;
+    
+    @Autowired
+    private ImageDerivativeJobRepository jobRepository;
+    
+    @LocalServerPort
+    private int port;
+    
+    private byte[] content;
+    private String hash;
+    
+    @BeforeEach
+    public void setUp() throws Exception {
+        content = pngBytes(10_000);
+        hash = store(content);
+    }
+    
+    /**
+     * A PNG signature followed by random bytes, so that every run stores new content.
+     */
+    private static byte[] pngBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random().nextBytes(bytes);
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+        System.arraycopy(signature, 0, bytes, 0, signature.length);
+        return bytes;
+    }
+    
+    private String store(byte[] bytes) throws Exception {
+        return imageStorage.store(new ByteArrayInputStream(bytes)).hash();
+    }
+    
+    /**
+     * A real image: a random color, so that every run stores new content, and a gradient.
+     */
+    private static byte[] photo(int width, int height, int type, String format) throws Exception {
+        BufferedImage image = new BufferedImage(width, height, type);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setPaint(new GradientPaint(0, 0, new Color(new Random().nextInt()), width, height, Color.ORANGE));
+        graphics.fillRect(0, 0, width, height);
+        graphics.dispose();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+    
+    /**
+     * Submits the pending jobs and waits until none of the content's is running.
+     */
+    private List<ImageDerivativeJob> renderDerivatives(String contentHash) {
+        derivativeWorker.processPending();
+        await().atMost(Duration.ofSeconds(30)).until(() -> jobRepository.findByContentHashOrderBySize(contentHash).stream()
+            .noneMatch(job -> job.getStatus() == ImageDerivativeJob.Status.RUNNING));
+        return jobRepository.findByContentHashOrderBySize(contentHash);
+    }
+    
+    private BufferedImage getDerivative(String contentHash, String size) throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/images/" + contentHash + "/" + size))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + contentHash + "-" + size + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andReturn();
+        return ImageIO.read(new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+    }
+    
+    @Test
+    public void testGetImage_ImmutableWithContentHashETag() throws Exception {
+        mockMvc.perform(get("/api/images/" + hash))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(content))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"" + hash + "\""))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"));
+        
+        mockMvc.perform(get("/api/images/" + hash)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + hash + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(content().bytes(new byte[0]));
+    }
+    
+    @Test
+    public void testGetImage_ByteRanges() throws Exception {
+        mockMvc.perform(get("/api/images/" + hash).header(HttpHeaders.RANGE, "bytes=100-199"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 100-199/10000"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 100))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 100, 200)));
+        mockMvc.perform(get("/api/images/" + hash).header(HttpHeaders.RANGE, "bytes=9990-"))
+                .andExpect(status().isPartialContent())
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 9990, 10000)));
+        mockMvc.perform(get("/api/images/" + hash).header(HttpHeaders.RANGE, "bytes=-50"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 9950-9999/10000"));
+        // The last position is clamped to the end of the content
+        mockMvc.perform(get("/api/images/" + hash).header(HttpHeaders.RANGE, "bytes=9000-20000"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 9000-9999/10000"));
+        
+        mockMvc.perform(get("/api/images/" + hash).header(HttpHeaders.RANGE, "bytes=10000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10000"));
+        
+        // Several ranges, a malformed header, or a stale If-Range: the whole content
+        mockMvc.perform(get("/api/images/" + hash).header(HttpHeaders.RANGE, "bytes=0-1,5-6"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+        mockMvc.perform(get("/api/images/" + hash).header(HttpHeaders.RANGE, "pages=1"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/images/" + hash)
+                .header(HttpHeaders.RANGE, "bytes=0-9")
+                .header(HttpHeaders.IF_RANGE, "\"another\""))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+        mockMvc.perform(get("/api/images/" + hash)
+                .header(HttpHeaders.RANGE, "bytes=0-9")
+                .header(HttpHeaders.IF_RANGE, "\"" + hash + "\""))
+                .andExpect(status().isPartialContent());
+    }
+    
+    @Test
+    public void testGetImage_UnknownOrMalformedAddress() throws Exception {
+        mockMvc.perform(get("/api/images/" + "0".repeat(64)))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/images/..%2F..%2Fetc%2Fpasswd"))
+                .andExpect(status().is4xxClientError());
+        mockMvc.perform(get("/api/images/" + hash.toUpperCase()))
+                .andExpect(status().isNotFound());
+    }
+    
+    @Test
+    public void testGetImage_SentByTheConnectorWithSendfile() throws Exception {
+        // Above the threshold the controller writes nothing: the body can only come from sendfile
+        byte[] large = pngBytes(200 * 1024);
+        String largeHash = store(large);
+        HttpClient client = HttpClient.newHttpClient();
+        URI uri = URI.create("http://localhost:" + port + "/api/images/" + largeHash);
+        
+        HttpResponse<byte[]> whole = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(whole.statusCode()).isEqualTo(200);
+        assertThat(whole.body()).isEqualTo(large);
+        
+        HttpResponse<byte[]> range = client.send(HttpRequest.newBuilder(uri).header(HttpHeaders.RANGE, "bytes=100000-149999").build(),
+            HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(range.statusCode()).isEqualTo(206);
+        assertThat(range.headers().firstValue(HttpHeaders.CONTENT_RANGE)).hasValue("bytes 100000-149999/204800");
+        assertThat(range.body()).isEqualTo(Arrays.copyOfRange(large, 100_000, 150_000));
+    }
+    
+    @Test
+    public void testDerivatives_RenderedForTheProfileAndServedBySize() throws Exception {
+        String photoHash = store(photo(2000, 1000, BufferedImage.TYPE_INT_RGB, "jpg"));
+        derivativeWorker.enqueue(photoHash, "image/jpeg", Image.ImageType.STOCK);
+        // Content enqueued again, by another image of it, adds no job
+        derivativeWorker.enqueue(photoHash, "image/jpeg", Image.ImageType.STOCK);
+        assertThat(jobRepository.findByContentHashOrderBySize(photoHash)).hasSize(3);
+        
+        assertThat(renderDerivatives(photoHash))
+            .extracting(ImageDerivativeJob::getStatus)
+            .containsOnly(ImageDerivativeJob.Status.DONE);
+        BufferedImage thumb = getDerivative(photoHash, "thumb");
+        assertThat(new int[] {thumb.getWidth(), thumb.getHeight()}).containsExactly(160, 80);
+        BufferedImage card = getDerivative(photoHash, "card");
+        assertThat(new int[] {card.getWidth(), card.getHeight()}).containsExactly(480, 240);
+        BufferedImage full = getDerivative(photoHash, "full");
+        assertThat(new int[] {full.getWidth(), full.getHeight()}).containsExactly(1600, 800);
+        
+        mockMvc.perform(get("/api/images/" + photoHash + "/thumb")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"" + photoHash + "-thumb\""))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/images/" + photoHash + "/huge"))
+                .andExpect(status().isNotFound());
+    }
+    
+    @Test
+    public void testDerivatives_ProfileOfTheImageTypeWithoutUpscaling() throws Exception {
+        String photoHash = store(photo(300, 200, BufferedImage.TYPE_INT_ARGB, "png"));
+        derivativeWorker.enqueue(photoHash, "image/png", Image.ImageType.STEP_BY_STEP);
+        assertThat(jobRepository.findByContentHashOrderBySize(photoHash))
+            .extracting(ImageDerivativeJob::getSize)
+            .containsExactlyInAnyOrder(ImageSize.THUMB, ImageSize.CARD);
+        
+        // Not rendered yet: the original stands in
+        mockMvc.perform(get("/api/images/" + photoHash + "/thumb"))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/images/" + photoHash))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "no-cache"));
+        
+        renderDerivatives(photoHash);
+        BufferedImage thumb = getDerivative(photoHash, "thumb");
+        assertThat(new int[] {thumb.getWidth(), thumb.getHeight()}).containsExactly(160, 107);
+        BufferedImage card = getDerivative(photoHash, "card");
+        assertThat(new int[] {card.getWidth(), card.getHeight()}).containsExactly(300, 200);
+        // Outside the profile of step-by-step images
+        mockMvc.perform(get("/api/images/" + photoHash + "/full"))
+                .andExpect(status().isTemporaryRedirect());
+    }
+    
+    @Test
+    public void testDerivatives_NoJobsForContentWithoutAnImageReader() throws Exception {
+        byte[] webp = new byte[5_000];
+        new Random().nextBytes(webp);
+        System.arraycopy(new byte[] {'R', 'I', 'F', 'F'}, 0, webp, 0, 4);
+        System.arraycopy(new byte[] {'W', 'E', 'B', 'P'}, 0, webp, 8, 4);
+        String webpHash = store(webp);
+        assertThat(imageStorage.contentTypeOf(webpHash)).isEqualTo("image/webp");
+        // No WebP reader on a stock JDK: rendering could only ever fail
+        assertThat(ImageDerivativeWorker.canDecode("image/webp")).isFalse();
+        
+        derivativeWorker.enqueue(webpHash, "image/webp", Image.ImageType.STOCK);
+        assertThat(jobRepository.findByContentHashOrderBySize(webpHash)).isEmpty();
+        mockMvc.perform(get("/api/images/" + webpHash + "/thumb"))
+                .andExpect(status().isTemporaryRedirect())
+                .andExpect(header().string(HttpHeaders.LOCATION, "/api/images/" + webpHash));
+    }
+    
+    @Test
+    public void testDerivatives_FailuresRetriedAndStaleClaimsTakenOver() throws Exception {
+        // A PNG signature over random bytes: stored, but no decoder makes sense of it
+        String brokenHash = store(pngBytes(5_000));
+        derivativeWorker.enqueue(brokenHash, "image/png", Image.ImageType.STEP_BY_STEP);
+        assertThat(renderDerivatives(brokenHash))
+            .allSatisfy(job -> {
+                assertThat(job.getStatus()).isEqualTo(ImageDerivativeJob.Status.PENDING);
+                assertThat(job.getAttempts()).isEqualTo(1);
+            });
+        assertThat(renderDerivatives(brokenHash))
+            .allSatisfy(job -> {
+                assertThat(job.getStatus()).isEqualTo(ImageDerivativeJob.Status.FAILED);
+                assertThat(job.getAttempts()).isEqualTo(2);
+                assertThat(job.getLastError()).isNotBlank();
+            });
+        
+        // Claims held by a live node are left alone, expired ones are taken over
+        String photoHash = store(photo(400, 400, BufferedImage.TYPE_INT_RGB, "png"));
+        derivativeWorker.enqueue(photoHash, "image/png", Image.ImageType.STEP_BY_STEP);
+        List<ImageDerivativeJob> jobs = jobRepository.findByContentHashOrderBySize(photoHash);
+        jobs.get(0).setStatus(ImageDerivativeJob.Status.RUNNING);
+        jobs.get(0).setClaimedAt(LocalDateTime.now());
+        jobs.get(1).setStatus(ImageDerivativeJob.Status.RUNNING);
+        jobs.get(1).setClaimedAt(LocalDateTime.now().minusHours(1));
+        jobRepository.saveAll(jobs);
+        
+        assertThat(derivativeWorker.processPending()).isEqualTo(1);
+        await().atMost(Duration.ofSeconds(30)).until(() ->
+            jobRepository.findById(jobs.get(1).getId()).orElseThrow().getStatus() == ImageDerivativeJob.Status.DONE);
+        assertThat(jobRepository.findById(jobs.get(0).getId()).orElseThrow().getStatus())
+            .isEqualTo(ImageDerivativeJob.Status.RUNNING);
+    }
+}
\ No newline at end of file
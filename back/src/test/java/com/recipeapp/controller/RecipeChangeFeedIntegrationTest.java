@@ -0,0 +1,188 @@
+package com.recipeapp.controller;
+
+import com.recipeapp.Application;
+import com.recipeapp.BaseIntegrationTest;
+import com.recipeapp.dto.CommentRequest;
+import com.recipeapp.dto.RecipeRequest;
+import com.recipeapp.dto.RecipeResponse;
+import com.recipeapp.entity.Recipe;
+import com.recipeapp.repository.RecipeChangeCursorRepository;
+import com.recipeapp.repository.RecipeChangeRepository;
+import com.recipeapp.search.AutocompleteIndex;
+import com.recipeapp.search.Suggestion;
+import com.recipeapp.service.RecipeChangeFeed;
+import com.recipeapp.service.RecipeResponseCache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Two nodes on one database: this test's context is node A, and node B is a second
+ * application context started on the same in-memory database, which it neither
+ * creates nor drops. Writes go through node A and commit, so the database of this
+ * class is its own.
+ */
+@TestPropertySource(properties = {
+    "spring.datasource.url=" + RecipeChangeFeedIntegrationTest.DATABASE_URL,
+    "recipes.change-feed.node-id=node-a"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class RecipeChangeFeedIntegrationTest extends BaseIntegrationTest {
+    
+    static final String DATABASE_URL = "jdbc:h2:mem:feeddb;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH";
+    
+    private static ConfigurableApplicationContext nodeB;
+    
+    @Autowired
+    private RecipeChangeFeed changeFeed;
+    
+    @Autowired
+    private RecipeChangeRepository recipeChangeRepository;
+    
+    @Autowired
+    private RecipeChangeCursorRepository recipeChangeCursorRepository;
+    
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+    
+    private String authToken;
+    
+    @BeforeEach
+    @Override
+    public void setUp() {
+        super.setUp();
+        if (nodeB == null) {
+            // Arguments, since default properties would lose to application.properties
+            nodeB = new SpringApplicationBuilder(Application.class)
+                .profiles("test")
+                .run("--server.port=0",
+                     "--spring.datasource.url=" + DATABASE_URL,
+                     "--spring.jpa.hibernate.ddl-auto=none",
+                     "--spring.sql.init.mode=never",
+                     "--recipes.change-feed.node-id=node-b");
+        }
+        // Both nodes start from the head of the feed
+        changeFeed.poll();
+        nodeB.getBean(RecipeChangeFeed.class).poll();
+        authToken = loginAndGetToken("test@example.com", "password123");
+    }
+    
+    @AfterAll
+    static void stopNodeB() {
+        if (nodeB != null) {
+            nodeB.close();
+            nodeB = null;
+        }
+    }
+    
+    private String createRecipeOnNodeA(String name) throws Exception {
+        RecipeRequest request = new RecipeRequest();
+        request.setName(name);
+        request.setIngredientsList(List.of(Map.of("name", "Lemon", "quantity", "2")));
+        request.setCookingTime(40);
+        request.setRecipeType(Recipe.RecipeType.DESSERT);
+        request.setLanguage(Recipe.Language.EN);
+        String response = mockMvc.perform(post("/api/recipes")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readValue(response, RecipeResponse.class).getId();
+    }
+    
+    private static List<String> completionsOnNodeB(String prefix) {
+        return nodeB.getBean(AutocompleteIndex.class).completeRecipeNames(prefix, 5).stream()
+            .map(Suggestion::text)
+            .toList();
+    }
+    
+    @Test
+    public void testWritesOnOneNodeReachTheOtherNodesCachesAndIndexes() throws Exception {
+        RecipeChangeFeed nodeBFeed = nodeB.getBean(RecipeChangeFeed.class);
+        RecipeResponseCache nodeBCache = nodeB.getBean(RecipeResponseCache.class);
+        
+        String id = createRecipeOnNodeA("Lemon Tart");
+        assertThat(completionsOnNodeB("lemon")).isEmpty();
+        assertThat(nodeBFeed.poll()).isEqualTo(1);
+        assertThat(completionsOnNodeB("lemon")).containsExactly("Lemon Tart");
+        
+        // Node B caches the recipe, then node A renames it
+        nodeBCache.get(id, key -> new RecipeResponse());
+        mockMvc.perform(patch("/api/recipes/" + id)
+                .header("Authorization", "Bearer " + authToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"Lime Tart\"}"))
+                .andExpect(status().isOk());
+        assertThat(nodeBCache.getIfPresent(id)).isNotNull();
+        
+        assertThat(nodeBFeed.poll()).isEqualTo(1);
+        assertThat(nodeBCache.getIfPresent(id)).isNull();
+        assertThat(completionsOnNodeB("lemon")).isEmpty();
+        assertThat(completionsOnNodeB("lime")).containsExactly("Lime Tart");
+        
+        mockMvc.perform(delete("/api/recipes/" + id)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNoContent());
+        assertThat(nodeBFeed.poll()).isEqualTo(1);
+        assertThat(completionsOnNodeB("lime")).isEmpty();
+        
+        // Node A skips its own changes, and both cursors end on the last one, durably
+        assertThat(nodeBFeed.poll()).isZero();
+        assertThat(changeFeed.poll()).isZero();
+        assertThat(changeFeed.getCursor()).isEqualTo(nodeBFeed.getCursor());
+        assertThat(recipeChangeCursorRepository.findById("node-b").orElseThrow().getLastChangeId())
+            .isEqualTo(nodeBFeed.getCursor());
+    }
+    
+    @Test
+    public void testCommentsRaiseTheAutocompleteWeightOnBothNodes() throws Exception {
+        RecipeChangeFeed nodeBFeed = nodeB.getBean(RecipeChangeFeed.class);
+        String tart = createRecipeOnNodeA("Quince Tart");
+        createRecipeOnNodeA("Quince Cake");
+        nodeBFeed.poll();
+        assertThat(completionsOnNodeB("quince")).containsExactly("Quince Cake", "Quince Tart");
+        
+        mockMvc.perform(post("/api/recipes/" + tart + "/comments")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(new CommentRequest("Lovely"))))
+                .andExpect(status().isOk());
+        
+        // Applied on commit on this node, and through the feed on the other one
+        assertThat(autocompleteIndex.completeRecipeNames("quince", 5))
+            .containsExactly(new Suggestion("Quince Tart", 2), new Suggestion("Quince Cake", 1));
+        assertThat(nodeBFeed.poll()).isEqualTo(1);
+        assertThat(completionsOnNodeB("quince")).containsExactly("Quince Tart", "Quince Cake");
+    }
+    
+    @Test
+    public void testRolledBackWriteIsNotInTheFeed() throws Exception {
+        String id = createRecipeOnNodeA("Lemon Curd");
+        long changes = recipeChangeRepository.count();
+        
+        // Not the owner: the update throws and its transaction rolls back
+        String otherToken = loginAndGetToken("admin@example.com", "admin123");
+        mockMvc.perform(patch("/api/recipes/" + id)
+                .header("Authorization", "Bearer " + otherToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"name\": \"Stolen Curd\"}"))
+                .andExpect(status().is5xxServerError());
+        
+        assertThat(recipeChangeRepository.count()).isEqualTo(changes);
+    }
+}
\ No newline at end of file
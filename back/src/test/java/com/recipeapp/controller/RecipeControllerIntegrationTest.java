@@ -1,21 +1,46 @@
 package com.recipeapp.controller;
 
 import com.recipeapp.BaseIntegrationTest;
-import com.recipeapp.dto.AuthRequest;
-import com.recipeapp.dto.AuthResponse;
+import com.recipeapp.dto.CommentRequest;
+import com.recipeapp.dto.ImageResponse;
 import com.recipeapp.dto.RecipeRequest;
+import com.recipeapp.entity.Image;
+import com.recipeapp.entity.ImageDerivativeJob;
+import com.recipeapp.entity.ImageSize;
 import com.recipeapp.entity.Recipe;
+import com.recipeapp.entity.User;
+import com.recipeapp.repository.ImageDerivativeJobRepository;
+import com.recipeapp.search.AutocompleteIndex;
+import com.recipeapp.service.ImageStorage;
+import com.recipeapp.service.IngredientNamesBackfill;
+import com.recipeapp.service.RecipeResponseCache;
+import com.recipeapp.service.UserCommentsMigrator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.*;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -26,6 +51,30 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 @Transactional
 public class RecipeControllerIntegrationTest extends BaseIntegrationTest {
     
+    @Autowired
+    private EntityManager entityManager;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    @Autowired
+    private RecipeResponseCache recipeResponseCache;
+    
+    @Autowired
+    private AutocompleteIndex autocompleteIndex;
+    
+    @Autowired
+    private UserCommentsMigrator userCommentsMigrator;
+    
+    @Autowired
+    private IngredientNamesBackfill ingredientNamesBackfill;
+    
+    @Autowired
+    private ImageStorage imageStorage;
+    
+    @Autowired
+    private ImageDerivativeJobRepository imageDerivativeJobRepository;
+    
     private String authToken;
     private Recipe testRecipe;
     
@@ -35,26 +84,44 @@ public class RecipeControllerIntegrationTest extends BaseIntegrationTest {
         super.setUp();
         authToken = loginAndGetToken("test@example.com", "password123");
         createTestRecipe();
+        rebuildRecipeIndexes();
     }
     
-    private String loginAndGetToken(String email, String password) {
-        try {
-            AuthRequest request = new AuthRequest();
-            request.setEmail(email);
-            request.setPassword(password);
-            
-            MvcResult result = mockMvc.perform(post("/api/auth/login")
-                    .contentType(MediaType.APPLICATION_JSON)
-                    .content(asJsonString(request)))
-                    .andExpect(status().isOk())
-                    .andReturn();
-            
-            String response = result.getResponse().getContentAsString();
-            AuthResponse authResponse = objectMapper.readValue(response, AuthResponse.class);
-            return authResponse.getToken();
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to get auth token", e);
-        }
+    private Recipe createRecipe(String name) {
+        return createRecipe(name, testUser);
+    }
+    
+    private Recipe createRecipe(String name, User owner) {
+        Recipe recipe = new Recipe();
+        recipe.setName(name);
+        recipe.setIngredientsList(List.of(Map.of("name", "Water", "quantity", "1 cup")));
+        recipe.setCookingTime(10);
+        recipe.setRecipeType(Recipe.RecipeType.OTHER);
+        recipe.setLanguage(Recipe.Language.EN);
+        recipe.setUser(owner);
+        return recipeRepository.save(recipe);
+    }
+    
+    /**
+     * Runs the request against an empty persistence context and returns the number
+     * of JDBC statements it prepared.
+     */
+    private long countStatements(RequestBuilder request) throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        return statistics.getPrepareStatementCount();
+    }
+    
+    private void postComment(String recipeId, String body) throws Exception {
+        mockMvc.perform(post("/api/recipes/" + recipeId + "/comments")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(new CommentRequest(body))))
+                .andExpect(status().isOk());
     }
     
     private void createTestRecipe() {
@@ -77,14 +144,142 @@ public class RecipeControllerIntegrationTest extends BaseIntegrationTest {
     @Test
     public void testGetAllPublicRecipes_Success() throws Exception {
         mockMvc.perform(get("/api/recipes/public"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name").value("Test Recipe"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+    
+    @Test
+    public void testGetAllPublicRecipes_KeysetPagination() throws Exception {
+        createRecipe("Apple Pie");
+        createRecipe("Banana Bread");
+        createRecipe("Zucchini Soup");
+        
+        MvcResult firstPage = mockMvc.perform(get("/api/recipes/public")
+                .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].name").value("Apple Pie"))
+                .andExpect(jsonPath("$.items[1].name").value("Banana Bread"))
+                .andExpect(jsonPath("$.next").isNotEmpty())
+                .andReturn();
+        
+        String next = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("next").asText();
+        
+        mockMvc.perform(get("/api/recipes/public")
+                .param("limit", "2")
+                .param("cursor", next))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].name").value("Test Recipe"))
+                .andExpect(jsonPath("$.items[1].name").value("Zucchini Soup"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+    
+    @Test
+    public void testGetAllPublicRecipes_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/recipes/public")
+                .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+    }
+    
+    @Test
+    public void testGetAllPublicRecipes_Unpaged() throws Exception {
+        createRecipe("Apple Pie");
+        
+        mockMvc.perform(get("/api/recipes/public")
+                .param("limit", "1")
+                .param("unpaged", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+    
+    @Test
+    public void testGetAllPublicRecipes_UnpagedPlainArray() throws Exception {
+        mockMvc.perform(get("/api/recipes/public")
+                .param("unpaged", "true"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
                 .andExpect(jsonPath("$[0].name").value("Test Recipe"));
     }
     
+    @Test
+    public void testGetAllPublicRecipes_SingleStatementPerPage() throws Exception {
+        createRecipe("Apple Pie", testAdmin);
+        createRecipe("Banana Bread", testAdmin);
+        
+        assertThat(countStatements(get("/api/recipes/public"))).isEqualTo(1);
+    }
+    
+    @Test
+    public void testGetAllPublicRecipes_SummaryView() throws Exception {
+        mockMvc.perform(get("/api/recipes/public")
+                .param("view", "SUMMARY"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name").value("Test Recipe"))
+                .andExpect(jsonPath("$.items[0].recipeType").value("DESSERT"))
+                .andExpect(jsonPath("$.items[0].cookingTime").value(30))
+                .andExpect(jsonPath("$.items[0].creatorUsername").value("Test User"))
+                .andExpect(jsonPath("$.items[0].instructions").doesNotExist())
+                .andExpect(jsonPath("$.items[0].ingredientsList").doesNotExist());
+    }
+    
+    @Test
+    public void testSummaryView_DoesNotHydrateRecipes() throws Exception {
+        createRecipe("Apple Pie", testAdmin);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        
+        long statements = countStatements(get("/api/recipes/public").param("view", "SUMMARY"));
+        
+        assertThat(statements).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+    
+    @Test
+    public void testSearchByName_SummaryView() throws Exception {
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "Test")
+                .param("view", "SUMMARY")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Test Recipe"))
+                .andExpect(jsonPath("$[0].creatorComment").doesNotExist());
+    }
+    
+    @Test
+    public void testListEndpoints_NoQueryPerCreator() throws Exception {
+        createRecipe("Apple Pie", testAdmin);
+        createRecipe("Banana Bread", testAdmin);
+        
+        // The token carries the user id and login cached the account status, so the
+        // listing is the only statement, including for the caller's own recipes.
+        long typeSearch = countStatements(get("/api/recipes/search/type")
+                .param("type", "OTHER")
+                .header("Authorization", "Bearer " + authToken));
+        long myRecipes = countStatements(get("/api/recipes/my-recipes")
+                .header("Authorization", "Bearer " + authToken));
+        
+        assertThat(typeSearch).isEqualTo(1);
+        assertThat(myRecipes).isEqualTo(1);
+    }
+    
     @Test
     public void testGetAllRecipes_Authenticated() throws Exception {
         mockMvc.perform(get("/api/recipes")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name").value("Test Recipe"));
+    }
+    
+    @Test
+    public void testGetAllRecipes_AuthenticatedUnpaged() throws Exception {
+        mockMvc.perform(get("/api/recipes")
+                .param("unpaged", "true")
                 .header("Authorization", "Bearer " + authToken))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$", hasSize(1)))
@@ -107,6 +302,132 @@ public class RecipeControllerIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.temperature").value(180));
     }
     
+    @Test
+    public void testGetRecipeById_ServedFromCache() throws Exception {
+        long hitsBefore = recipeResponseCache.stats().hitCount();
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk());
+        
+        long statements = countStatements(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken));
+        
+        // A hit never touches the database, authentication included
+        assertThat(statements).isZero();
+        assertThat(recipeResponseCache.stats().hitCount()).isEqualTo(hitsBefore + 1);
+    }
+    
+    @Test
+    public void testGetRecipeById_EvictedOnUpdate() throws Exception {
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.name").value("Test Recipe"));
+        
+        RecipeRequest request = new RecipeRequest();
+        request.setName("Renamed Recipe");
+        request.setIngredientsList(testRecipe.getIngredientsList());
+        request.setCookingTime(30);
+        request.setRecipeType(Recipe.RecipeType.DESSERT);
+        request.setLanguage(Recipe.Language.EN);
+        
+        mockMvc.perform(put("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(request)))
+                .andExpect(status().isOk());
+        
+        assertThat(recipeResponseCache.getIfPresent(testRecipe.getId())).isNull();
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.name").value("Renamed Recipe"));
+    }
+    
+    @Test
+    public void testGetRecipeById_NotModified() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andExpect(header().exists("Last-Modified"))
+                .andReturn();
+        String etag = result.getResponse().getHeader("ETag");
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("If-None-Match", etag)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        
+        // Without a cached copy the tag is revalidated from the update timestamp alone
+        recipeResponseCache.evict(testRecipe.getId());
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("If-None-Match", etag)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNotModified());
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(recipeResponseCache.getIfPresent(testRecipe.getId())).isNull();
+    }
+    
+    @Test
+    public void testGetRecipeById_ModifiedAfterUpdate() throws Exception {
+        String etag = mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andReturn().getResponse().getHeader("ETag");
+        
+        Thread.sleep(5);
+        testRecipe.setCookingTime(40);
+        recipeRepository.saveAndFlush(testRecipe);
+        recipeResponseCache.evict(testRecipe.getId());
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("If-None-Match", etag)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cookingTime").value(40))
+                .andExpect(header().string("ETag", not(etag)));
+    }
+    
+    @Test
+    public void testGetAllPublicRecipes_NotModified() throws Exception {
+        String etag = mockMvc.perform(get("/api/recipes/public"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", startsWith("W/")))
+                .andReturn().getResponse().getHeader("ETag");
+        
+        mockMvc.perform(get("/api/recipes/public")
+                .header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        
+        createRecipe("Apple Pie");
+        
+        mockMvc.perform(get("/api/recipes/public")
+                .header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)));
+    }
+    
+    @Test
+    public void testCrossOriginPatchAndETag() throws Exception {
+        mockMvc.perform(options("/api/recipes/" + testRecipe.getId())
+                .header("Origin", "http://localhost:5173")
+                .header("Access-Control-Request-Method", "PATCH")
+                .header("Access-Control-Request-Headers", "authorization, content-type, if-match"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Access-Control-Allow-Methods", containsString("PATCH")));
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Origin", "http://localhost:5173")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Access-Control-Expose-Headers", containsString("ETag")));
+    }
+    
     @Test
     public void testGetRecipeById_NotFound() throws Exception {
         mockMvc.perform(get("/api/recipes/non-existent-id")
@@ -185,6 +506,86 @@ public class RecipeControllerIntegrationTest extends BaseIntegrationTest {
                 .andExpect(status().is5xxServerError());
     }
     
+    @Test
+    public void testPatchRecipe_MergesGivenFieldsAndBumpsVersion() throws Exception {
+        mockMvc.perform(patch("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"creatorRating\": 5, \"instructions\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"1\""))
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.creatorRating").value(5))
+                .andExpect(jsonPath("$.instructions").doesNotExist())
+                .andExpect(jsonPath("$.name").value("Test Recipe"))
+                .andExpect(jsonPath("$.ingredientsList", hasSize(2)));
+        
+        // Nothing changed: no UPDATE is issued, so the version stays where it was
+        mockMvc.perform(patch("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"creatorRating\": 5, \"name\": \"Test Recipe\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1));
+    }
+    
+    @Test
+    public void testPatchRecipe_IfMatchPreconditionFailed() throws Exception {
+        String etag = mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andReturn().getResponse().getHeader("ETag");
+        
+        mockMvc.perform(patch("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-Match", etag)
+                .contentType("application/merge-patch+json")
+                .content("{\"cookingTime\": 45}"))
+                .andExpect(status().isOk());
+        
+        mockMvc.perform(patch("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .header("If-Match", etag)
+                .contentType("application/merge-patch+json")
+                .content("{\"cookingTime\": 50}"))
+                .andExpect(status().isPreconditionFailed());
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.cookingTime").value(45));
+    }
+    
+    @Test
+    public void testPatchRecipe_ConcurrentWriteConflict() throws Exception {
+        // Another writer commits a new version after this recipe was loaded
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE recipes SET version = version + 1 WHERE id = ?1")
+                .setParameter(1, testRecipe.getId())
+                .executeUpdate();
+        
+        mockMvc.perform(patch("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"creatorRating\": 2}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error").value("Conflict"));
+    }
+    
+    @Test
+    public void testPatchRecipe_InvalidPatch() throws Exception {
+        mockMvc.perform(patch("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"cookingTime\": null}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", containsString("cookingTime")));
+        
+        mockMvc.perform(patch("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken)
+                .contentType("application/merge-patch+json")
+                .content("{\"cookTime\": 20}"))
+                .andExpect(status().isBadRequest());
+    }
+    
     @Test
     public void testDeleteRecipe_Success() throws Exception {
         mockMvc.perform(delete("/api/recipes/" + testRecipe.getId())
@@ -215,6 +616,111 @@ public class RecipeControllerIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$[0].name").value("Test Recipe"));
     }
     
+    @Test
+    public void testSearchByName_RankedByRelevanceAndLimited() throws Exception {
+        createRecipe("Hot Chocolate Drink");
+        createRecipe("Chocolate");
+        createRecipe("Chocolate Cake");
+        createRecipe("Vanilla Cake");
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "chocolate")
+                .param("limit", "2")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name").value("Chocolate"))
+                .andExpect(jsonPath("$[1].name").value("Chocolate Cake"));
+    }
+    
+    @Test
+    public void testSearchByName_FuzzyToleratesTypos() throws Exception {
+        createRecipe("Chocolate Chip Cookies");
+        createRecipe("Chocolate Cake");
+        createRecipe("Chicken Curry");
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "choclate chip")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "choclate chip")
+                .param("fuzzy", "true")
+                .param("view", "SUMMARY")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Chocolate Chip Cookies"));
+        
+        // Exact words rank before near misses
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "chocolate")
+                .param("fuzzy", "true")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name").value("Chocolate Cake"));
+        
+        // Beyond the edit budget
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "chcolte")
+                .param("fuzzy", "true")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    @Test
+    public void testSearchByName_ExcludesDeletedRecipes() throws Exception {
+        mockMvc.perform(delete("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isNoContent());
+        
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "Test")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    @Test
+    public void testSearchByName_KeywordNormalizedAndLiteral() throws Exception {
+        createRecipe("100% Rye Bread");
+        rebuildRecipeIndexes();
+        
+        // Trimmed and lower-cased, as every engine does
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "  TEST recipe ")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Test Recipe"));
+        
+        // LIKE wildcards match themselves only
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "0% r")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("100% Rye Bread"));
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "t_st")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        
+        // Blank matches nothing rather than everything
+        mockMvc.perform(get("/api/recipes/search/name")
+                .param("keyword", "   ")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
     @Test
     public void testSearchByName_NoResults() throws Exception {
         mockMvc.perform(get("/api/recipes/search/name")
@@ -233,6 +739,404 @@ public class RecipeControllerIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$", hasSize(greaterThanOrEqualTo(0))));
     }
     
+    @Test
+    public void testSearchByIngredient_MatchesNamesOnly() throws Exception {
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "  flour ")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Test Recipe"));
+        
+        // Quantities and JSON keys are not part of the index
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "cup")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    @Test
+    public void testSearchByIngredient_WholeNamesOnly() throws Exception {
+        Recipe bread = createRecipe("Country Bread");
+        bread.setIngredientsList(List.of(
+            Map.of("name", "All-purpose flour", "quantity", "500 g"),
+            Map.of("name", "Tomato", "quantity", "1")
+        ));
+        recipeRepository.save(bread);
+        
+        // Neither a word of a name nor a prefix of it: partial names go through autocomplete
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "flour")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Test Recipe")));
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "tom")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "ALL-PURPOSE  Flour", "tomato")
+                .param("match", "ALL")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].name", contains("Country Bread")));
+    }
+    
+    @Test
+    public void testSearchByIngredient_AnyAndAll() throws Exception {
+        Recipe creme = createRecipe("Crème Brûlée");
+        creme.setIngredientsList(List.of(
+            Map.of("name", "Crème fraîche", "quantity", "50 cl"),
+            Map.of("name", "Sugar", "quantity", "100 g")
+        ));
+        recipeRepository.save(creme);
+        
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "flour", "creme fraiche")
+                .param("match", "ANY")
+                .param("view", "SUMMARY")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+        
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "sugar", "CRÈME FRAÎCHE")
+                .param("match", "ALL")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Crème Brûlée"));
+    }
+    
+    @Test
+    public void testBackfillIngredientNames_SameNormalFormAsQueries() throws Exception {
+        Recipe boeuf = createRecipe("Bœuf bourguignon");
+        boeuf.setIngredientsList(List.of(
+            Map.of("name", "Bœuf", "quantity", "1 kg"),
+            Map.of("name", "Œufs", "quantity", "2")
+        ));
+        recipeRepository.save(boeuf);
+        // Rows written before recipe_ingredients existed
+        entityManager.flush();
+        entityManager.createNativeQuery("DELETE FROM recipe_ingredients").executeUpdate();
+        entityManager.clear();
+        
+        assertThat(ingredientNamesBackfill.backfill()).isEqualTo(2);
+        assertThat(ingredientNamesBackfill.backfill()).isZero();
+        
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "bœuf", "ŒUFS")
+                .param("match", "ALL")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].name").value("Bœuf bourguignon"));
+        mockMvc.perform(get("/api/recipes/search/ingredient")
+                .param("ingredient", "flour")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)));
+    }
+    
+    @Test
+    public void testSearchText_StemmedWithSnippet() throws Exception {
+        Recipe stew = createRecipe("Beef Stew");
+        stew.setInstructions("Sear the beef, then braise it slowly in red wine for three hours");
+        recipeRepository.save(stew);
+        Recipe salad = createRecipe("Green Salad");
+        salad.setInstructions("Toss the leaves with the dressing");
+        recipeRepository.save(salad);
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/search/text")
+                .param("q", "braised beef")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].recipe.name").value("Beef Stew"))
+                .andExpect(jsonPath("$[0].rank").isNumber())
+                .andExpect(jsonPath("$[0].snippet").value(containsString("<b>braise</b>")));
+    }
+    
+    @Test
+    public void testSearchText_SnippetEscapesRecipeText() throws Exception {
+        Recipe stew = createRecipe("Beef Stew");
+        stew.setInstructions("Braise <script>alert('x')</script> the beef & serve \u0002hot\u0003");
+        recipeRepository.save(stew);
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/search/text")
+                .param("q", "braise")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].snippet").value(containsString("<b>Braise</b>")))
+                .andExpect(jsonPath("$[0].snippet").value(containsString("&lt;script&gt;alert(&#39;x&#39;)&lt;/script&gt;")))
+                .andExpect(jsonPath("$[0].snippet").value(containsString("&amp; serve hot")))
+                .andExpect(jsonPath("$[0].snippet").value(not(containsString("<script>"))));
+    }
+    
+    @Test
+    public void testSearchText_FrenchStemmingAndLanguageFilter() throws Exception {
+        Recipe daube = createRecipe("Daube provençale");
+        daube.setLanguage(Recipe.Language.FR);
+        daube.setCreatorComment("Bœuf mijoté longuement au vin rouge");
+        recipeRepository.save(daube);
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/search/text")
+                .param("q", "mijoter")
+                .param("language", "FR")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].recipe.name").value("Daube provençale"))
+                .andExpect(jsonPath("$[0].snippet").value(containsString("<b>mijoté</b>")));
+        
+        mockMvc.perform(get("/api/recipes/search/text")
+                .param("q", "mijoter")
+                .param("language", "EN")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    @Test
+    public void testSearchText_StopWordsOnly() throws Exception {
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/search/text")
+                .param("q", "the and")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    @Test
+    public void testSearchByPantry_RankedByMissingIngredients() throws Exception {
+        Recipe pancakes = createRecipe("Pancakes");
+        pancakes.setIngredientsList(List.of(
+            Map.of("name", "Flour", "quantity", "250 g"),
+            Map.of("name", "Eggs", "quantity", "4"),
+            Map.of("name", "Milk", "quantity", "50 cl")
+        ));
+        recipeRepository.save(pancakes);
+        Recipe omelette = createRecipe("Omelette");
+        omelette.setIngredientsList(List.of(
+            Map.of("name", "Eggs", "quantity", "3"),
+            Map.of("name", "Butter", "quantity", "10 g")
+        ));
+        recipeRepository.save(omelette);
+        Recipe quiche = createRecipe("Quiche");
+        quiche.setIngredientsList(List.of(
+            Map.of("name", "Eggs", "quantity", "3"),
+            Map.of("name", "Cream", "quantity", "20 cl"),
+            Map.of("name", "Bacon", "quantity", "200 g"),
+            Map.of("name", "Pastry", "quantity", "1"),
+            Map.of("name", "Cheese", "quantity", "100 g")
+        ));
+        recipeRepository.save(quiche);
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/search/pantry")
+                .param("ingredient", "eggs", "Flour", "MILK", "butter")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(3)))
+                .andExpect(jsonPath("$[0].recipe.name").value("Pancakes"))
+                .andExpect(jsonPath("$[0].missing").value(0))
+                .andExpect(jsonPath("$[1].recipe.name").value("Omelette"))
+                .andExpect(jsonPath("$[2].recipe.name").value("Test Recipe"))
+                .andExpect(jsonPath("$[2].missingIngredients[0]").value("sugar"));
+        
+        mockMvc.perform(get("/api/recipes/search/pantry")
+                .param("ingredient", "eggs")
+                .param("maxMissing", "1")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].recipe.name").value("Omelette"))
+                .andExpect(jsonPath("$[0].missingIngredients", contains("butter")));
+    }
+    
+    @Test
+    public void testSearchByPantry_UnknownIngredients() throws Exception {
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/search/pantry")
+                .param("ingredient", "dragon fruit")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    @Test
+    public void testSearch_CombinedFiltersWithFacets() throws Exception {
+        Recipe soup = createRecipe("Tomato Soup");
+        soup.setRecipeType(Recipe.RecipeType.STARTER);
+        soup.setCookingTime(30);
+        soup.setIngredientsList(List.of(Map.of("name", "Tomato", "quantity", "1 kg")));
+        recipeRepository.save(soup);
+        Recipe tart = createRecipe("Tomato Tart");
+        tart.setRecipeType(Recipe.RecipeType.MAIN);
+        tart.setCookingTime(45);
+        tart.setTemperature(200);
+        tart.setIngredientsList(List.of(
+            Map.of("name", "Tomato", "quantity", "4"),
+            Map.of("name", "Pastry", "quantity", "1")
+        ));
+        recipeRepository.save(tart);
+        Recipe salade = createRecipe("Salade de tomates");
+        salade.setRecipeType(Recipe.RecipeType.STARTER);
+        salade.setLanguage(Recipe.Language.FR);
+        salade.setCookingTime(10);
+        salade.setIngredientsList(List.of(Map.of("name", "Tomate", "quantity", "3")));
+        recipeRepository.save(salade);
+        
+        mockMvc.perform(get("/api/recipes/search")
+                .param("keyword", "tomat")
+                .param("recipeType", "STARTER")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].name").value("Salade de tomates"))
+                .andExpect(jsonPath("$.items[1].name").value("Tomato Soup"))
+                // The type facet ignores recipeType=STARTER, the language facet does not
+                .andExpect(jsonPath("$.recipeTypes.STARTER").value(2))
+                .andExpect(jsonPath("$.recipeTypes.MAIN").value(1))
+                .andExpect(jsonPath("$.recipeTypes.DESSERT").value(0))
+                .andExpect(jsonPath("$.languages.EN").value(1))
+                .andExpect(jsonPath("$.languages.FR").value(1));
+        
+        mockMvc.perform(get("/api/recipes/search")
+                .param("ingredient", "tomato")
+                .param("minCookingTime", "20")
+                .param("maxTemperature", "180")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(0)));
+        
+        mockMvc.perform(get("/api/recipes/search")
+                .param("ingredient", "tomato", "pastry")
+                .param("match", "ALL")
+                .param("minCookingTime", "20")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].name").value("Tomato Tart"));
+        
+        // ANY by default, as on /search/ingredient
+        mockMvc.perform(get("/api/recipes/search")
+                .param("ingredient", "tomato", "pastry")
+                .param("minCookingTime", "20")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].name").value("Tomato Soup"))
+                .andExpect(jsonPath("$.items[1].name").value("Tomato Tart"));
+    }
+    
+    @Test
+    public void testSearch_KeysetPagesWithFacetsInOneStatement() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            createRecipe("Cake " + i);
+        }
+        
+        MvcResult first = mockMvc.perform(get("/api/recipes/search")
+                .param("keyword", "cake")
+                .param("limit", "3")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.recipeTypes.OTHER").value(5))
+                .andExpect(jsonPath("$.next").isNotEmpty())
+                .andReturn();
+        String next = objectMapper.readTree(first.getResponse().getContentAsString()).get("next").asText();
+        
+        mockMvc.perform(get("/api/recipes/search")
+                .param("keyword", "cake")
+                .param("limit", "3")
+                .param("cursor", next)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].name").value("Cake 3"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+        
+        // One statement for the page and one for both facets
+        assertThat(countStatements(get("/api/recipes/search")
+                .param("keyword", "cake")
+                .param("language", "EN")
+                .header("Authorization", "Bearer " + authToken))).isEqualTo(2);
+    }
+    
+    @Test
+    public void testAutocomplete_RankedByPopularityWithoutDatabase() throws Exception {
+        Recipe cookies = createRecipe("Chocolate Chip Cookies");
+        cookies.setIngredientsList(List.of(
+            Map.of("name", "Chocolate chips", "quantity", "200 g"),
+            Map.of("name", "Flour", "quantity", "250 g")
+        ));
+        recipeRepository.save(cookies);
+        Recipe mousse = createRecipe("Chocolate Mousse");
+        mousse.setIngredientsList(List.of(Map.of("name", "Chocolate", "quantity", "200 g")));
+        recipeRepository.save(mousse);
+        postComment(mousse.getId(), "Great");
+        postComment(mousse.getId(), "Perfect");
+        Recipe cake = createRecipe("Chocolate Cake");
+        cake.setIngredientsList(List.of(
+            Map.of("name", "Chocolate", "quantity", "150 g"),
+            Map.of("name", "Flour", "quantity", "100 g")
+        ));
+        recipeRepository.save(cake);
+        // The comment counts were incremented in the database, behind the loaded entities
+        entityManager.flush();
+        entityManager.clear();
+        rebuildRecipeIndexes();
+        
+        mockMvc.perform(get("/api/recipes/autocomplete")
+                .param("prefix", "CHOC")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipes", hasSize(3)))
+                .andExpect(jsonPath("$.recipes[0].text").value("Chocolate Mousse"))
+                .andExpect(jsonPath("$.recipes[0].weight").value(3))
+                .andExpect(jsonPath("$.ingredients[0].text").value("chocolate"))
+                .andExpect(jsonPath("$.ingredients[0].weight").value(2))
+                .andExpect(jsonPath("$.ingredients[1].text").value("chocolate chips"));
+        
+        // Completes from the start of any word of a recipe name
+        mockMvc.perform(get("/api/recipes/autocomplete")
+                .param("prefix", "chip")
+                .param("limit", "1")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipes", hasSize(1)))
+                .andExpect(jsonPath("$.recipes[0].text").value("Chocolate Chip Cookies"));
+        
+        assertThat(countStatements(get("/api/recipes/autocomplete")
+                .param("prefix", "fl")
+                .header("Authorization", "Bearer " + authToken))).isZero();
+    }
+    
+    @Test
+    public void testAutocomplete_DropsRemovedRecipes() throws Exception {
+        rebuildRecipeIndexes();
+        assertThat(autocompleteIndex.completeRecipeNames("test", 5)).hasSize(1);
+        assertThat(autocompleteIndex.completeIngredients("sug", 5)).hasSize(1);
+        
+        autocompleteIndex.remove(testRecipe.getId());
+        
+        mockMvc.perform(get("/api/recipes/autocomplete")
+                .param("prefix", "test")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recipes", hasSize(0)));
+        assertThat(autocompleteIndex.completeIngredients("sug", 5)).isEmpty();
+    }
+    
     @Test
     public void testSearchByType_Success() throws Exception {
         mockMvc.perform(get("/api/recipes/search/type")
@@ -243,6 +1147,301 @@ public class RecipeControllerIntegrationTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$[0].recipeType").value("DESSERT"));
     }
     
+    @Test
+    public void testExportRecipes_Ndjson() throws Exception {
+        Recipe frenchRecipe = createRecipe("Tarte Tatin");
+        frenchRecipe.setLanguage(Recipe.Language.FR);
+        recipeRepository.save(frenchRecipe);
+        
+        MvcResult result = mockMvc.perform(get("/api/recipes/export")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn();
+        
+        String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readTree(lines[0]).get("creatorUsername").asText()).isEqualTo("Test User");
+    }
+    
+    @Test
+    public void testExportRecipes_FilteredAndGzipped() throws Exception {
+        Recipe frenchRecipe = createRecipe("Tarte Tatin");
+        frenchRecipe.setLanguage(Recipe.Language.FR);
+        recipeRepository.save(frenchRecipe);
+        
+        MvcResult result = mockMvc.perform(get("/api/recipes/export")
+                .param("language", "FR")
+                .header("Accept-Encoding", "gzip")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+        
+        byte[] body = result.getResponse().getContentAsByteArray();
+        String ndjson;
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            ndjson = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        String[] lines = ndjson.split("\n");
+        assertThat(lines).hasSize(1);
+        assertThat(objectMapper.readTree(lines[0]).get("name").asText()).isEqualTo("Tarte Tatin");
+    }
+    
+    @Test
+    public void testImportRecipes_NdjsonReportsEachRecord() throws Exception {
+        String ndjson = String.join("\n",
+            "{\"name\":\"Imported Soup\",\"cookingTime\":20,\"recipeType\":\"STARTER\",\"ingredientsList\":[{\"name\":\"Leek\"}]}",
+            "{\"cookingTime\":20,\"recipeType\":\"STARTER\"}",
+            "{\"name\":\"Bad Type\",\"cookingTime\":20,\"recipeType\":\"BRUNCH\"}",
+            "{\"name\":\"Imported Tart\",\"cookingTime\":40,\"recipeType\":\"DESSERT\",\"language\":\"FR\",\"creatorRating\":6}",
+            "{\"name\":\"Imported Cake\",\"cookingTime\":40,\"recipeType\":\"DESSERT\",\"language\":\"FR\"}");
+        
+        mockMvc.perform(post("/api/recipes/import")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType("application/x-ndjson")
+                .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.rejected").value(3))
+                .andExpect(jsonPath("$.records", hasSize(5)))
+                .andExpect(jsonPath("$.records[0].status").value("IMPORTED"))
+                .andExpect(jsonPath("$.records[0].id").isNotEmpty())
+                .andExpect(jsonPath("$.records[1].status").value("INVALID"))
+                .andExpect(jsonPath("$.records[1].errors[0]").value(startsWith("name ")))
+                .andExpect(jsonPath("$.records[2].status").value("INVALID"))
+                .andExpect(jsonPath("$.records[3].errors[0]").value(startsWith("creatorRating ")))
+                .andExpect(jsonPath("$.records[4].index").value(4))
+                .andExpect(jsonPath("$.records[4].status").value("IMPORTED"));
+        
+        List<Recipe> mine = recipeRepository.findAll().stream()
+            .filter(recipe -> recipe.getName().startsWith("Imported"))
+            .toList();
+        assertThat(mine).extracting(Recipe::getName).containsExactlyInAnyOrder("Imported Soup", "Imported Cake");
+        assertThat(mine).allSatisfy(recipe -> assertThat(recipe.getUser().getId()).isEqualTo(testUser.getId()));
+        assertThat(mine).filteredOn(recipe -> recipe.getName().equals("Imported Soup"))
+            .allSatisfy(recipe -> assertThat(recipe.getIngredientNames()).containsExactly("leek"));
+    }
+    
+    @Test
+    public void testImportRecipes_JsonArrayInsertedInJdbcBatches() throws Exception {
+        List<RecipeRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            RecipeRequest request = new RecipeRequest();
+            request.setName("Bulk Recipe " + i);
+            request.setIngredientsList(List.of(Map.of("name", "Flour"), Map.of("name", "Egg " + i)));
+            request.setCookingTime(i);
+            request.setRecipeType(Recipe.RecipeType.BREAD);
+            requests.add(request);
+        }
+        
+        // Chunks of 20 in the test configuration: three commits, two batched INSERTs each
+        // (recipes, recipe_ingredients), and no lookup of the owner
+        long statements = countStatements(post("/api/recipes/import")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(requests)));
+        
+        assertThat(statements).isEqualTo(6);
+        assertThat(recipeRepository.count()).isEqualTo(51);
+    }
+    
+    @Test
+    public void testComments_NewestFirstByKeysetWithCountInSummaries() throws Exception {
+        postComment(testRecipe.getId(), "First");
+        Thread.sleep(2);
+        postComment(testRecipe.getId(), "Second");
+        Thread.sleep(2);
+        postComment(testRecipe.getId(), "Third");
+        
+        MvcResult firstPage = mockMvc.perform(get("/api/recipes/" + testRecipe.getId() + "/comments")
+                .param("limit", "2")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(2)))
+                .andExpect(jsonPath("$.items[0].body").value("Third"))
+                .andExpect(jsonPath("$.items[0].authorUsername").value("Test User"))
+                .andExpect(jsonPath("$.items[1].body").value("Second"))
+                .andExpect(jsonPath("$.next").isNotEmpty())
+                .andReturn();
+        String next = objectMapper.readTree(firstPage.getResponse().getContentAsString()).get("next").asText();
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId() + "/comments")
+                .param("limit", "2")
+                .param("cursor", next)
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items", hasSize(1)))
+                .andExpect(jsonPath("$.items[0].body").value("First"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+        
+        mockMvc.perform(get("/api/recipes/public").param("view", "SUMMARY"))
+                .andExpect(jsonPath("$.items[0].commentCount").value(3));
+    }
+    
+    @Test
+    public void testAddComment_NeitherLoadsNorVersionsRecipe() throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        
+        postComment(testRecipe.getId(), "Lovely");
+        assertThat(statistics.getEntityStatistics(Recipe.class.getName()).getLoadCount()).isZero();
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId())
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.version").value(0));
+    }
+    
+    @Test
+    public void testAddComment_Invalid() throws Exception {
+        mockMvc.perform(post("/api/recipes/" + testRecipe.getId() + "/comments")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(new CommentRequest("  "))))
+                .andExpect(status().isBadRequest());
+        
+        mockMvc.perform(post("/api/recipes/non-existent-id/comments")
+                .header("Authorization", "Bearer " + authToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(asJsonString(new CommentRequest("Lovely"))))
+                .andExpect(status().is5xxServerError());
+    }
+    
+    @Test
+    public void testMigrateLegacyUserComments() throws Exception {
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE recipes SET user_comments = ?1 WHERE id = ?2")
+                .setParameter(1, "[{\"comment\": \"Lovely\", \"userId\": \"" + testAdmin.getId() + "\", " +
+                                 "\"createdAt\": \"2024-01-02T10:00:00\"}, {\"text\": \"So good\"}, \"Plain\"]")
+                .setParameter(2, testRecipe.getId())
+                .executeUpdate();
+        
+        assertThat(userCommentsMigrator.migrate()).isEqualTo(3);
+        assertThat(userCommentsMigrator.migrate()).isZero();
+        entityManager.clear();
+        
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId() + "/comments")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$.items", hasSize(3)))
+                .andExpect(jsonPath("$.items[*].body", containsInAnyOrder("Lovely", "So good", "Plain")))
+                .andExpect(jsonPath("$.items[?(@.body == 'Lovely')].authorUsername").value("Admin User"));
+        mockMvc.perform(get("/api/recipes/public").param("view", "SUMMARY"))
+                .andExpect(jsonPath("$.items[0].commentCount").value(3));
+    }
+    
+    /**
+     * A PNG signature followed by random bytes, so that every run uploads new content.
+     */
+    private static byte[] pngBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random().nextBytes(bytes);
+        byte[] signature = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A};
+        System.arraycopy(signature, 0, bytes, 0, signature.length);
+        return bytes;
+    }
+    
+    private MvcResult uploadImage(String recipeId, String token, MockMultipartFile file) throws Exception {
+        return mockMvc.perform(multipart("/api/recipes/" + recipeId + "/images")
+                .file(file)
+                .header("Authorization", "Bearer " + token))
+                .andReturn();
+    }
+    
+    private static boolean noUploadInProgress() throws Exception {
+        try (var incoming = Files.list(Path.of("target/test-images/incoming"))) {
+            return incoming.findAny().isEmpty();
+        }
+    }
+    
+    @Test
+    public void testUploadImage_StoredUnderContentHash() throws Exception {
+        byte[] content = pngBytes(100_000);
+        String hash = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        
+        mockMvc.perform(multipart("/api/recipes/" + testRecipe.getId() + "/images")
+                .file(new MockMultipartFile("file", "C:\\photos\\tart.png", "application/octet-stream", content))
+                .param("displayName", "The tart")
+                .param("imageType", "STEP_BY_STEP")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").isNotEmpty())
+                .andExpect(jsonPath("$.recipeId").value(testRecipe.getId()))
+                .andExpect(jsonPath("$.name").value("tart.png"))
+                .andExpect(jsonPath("$.displayName").value("The tart"))
+                .andExpect(jsonPath("$.imageType").value("STEP_BY_STEP"))
+                .andExpect(jsonPath("$.contentHash").value(hash))
+                .andExpect(jsonPath("$.contentType").value("image/png"))
+                .andExpect(jsonPath("$.sizeBytes").value(content.length));
+        
+        assertThat(Files.readAllBytes(imageStorage.resolve(hash))).isEqualTo(content);
+        assertThat(noUploadInProgress()).isTrue();
+        // The derivatives of step-by-step images are queued with the image
+        assertThat(imageDerivativeJobRepository.findByContentHashOrderBySize(hash))
+            .extracting(ImageDerivativeJob::getSize, ImageDerivativeJob::getStatus)
+            .containsExactlyInAnyOrder(tuple(ImageSize.THUMB, ImageDerivativeJob.Status.PENDING),
+                                       tuple(ImageSize.CARD, ImageDerivativeJob.Status.PENDING));
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId() + "/images")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].contentHash").value(hash))
+                .andExpect(jsonPath("$[0].displayName").value("The tart"));
+    }
+    
+    @Test
+    public void testUploadImage_IdenticalContentStoredOnce() throws Exception {
+        byte[] content = pngBytes(10_000);
+        ImageResponse first = objectMapper.readValue(uploadImage(testRecipe.getId(), authToken,
+            new MockMultipartFile("file", "one.png", "image/png", content)).getResponse().getContentAsString(), ImageResponse.class);
+        Path stored = imageStorage.resolve(first.getContentHash());
+        long modified = Files.getLastModifiedTime(stored).toMillis();
+        
+        Recipe other = createRecipe("Other Tart");
+        ImageResponse second = objectMapper.readValue(uploadImage(other.getId(), authToken,
+            new MockMultipartFile("file", "two.png", "image/png", content)).getResponse().getContentAsString(), ImageResponse.class);
+        
+        // Two images, one file, not rewritten
+        assertThat(second.getId()).isNotEqualTo(first.getId());
+        assertThat(second.getContentHash()).isEqualTo(first.getContentHash());
+        assertThat(Files.getLastModifiedTime(stored).toMillis()).isEqualTo(modified);
+        assertThat(noUploadInProgress()).isTrue();
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(recipeRepository.findById(other.getId()).orElseThrow().getImages())
+            .extracting(Image::getName).containsExactly("two.png");
+    }
+    
+    @Test
+    public void testUploadImage_RejectsNonImagesAndOversizeUploads() throws Exception {
+        MvcResult text = uploadImage(testRecipe.getId(), authToken,
+            new MockMultipartFile("file", "fake.png", "image/png", "not an image".getBytes(StandardCharsets.UTF_8)));
+        assertThat(text.getResponse().getStatus()).isEqualTo(400);
+        assertThat(text.getResponse().getContentAsString()).contains("Invalid image");
+        
+        // Test limit: 256KB
+        MvcResult oversize = uploadImage(testRecipe.getId(), authToken,
+            new MockMultipartFile("file", "huge.png", "image/png", pngBytes(256 * 1024 + 1)));
+        assertThat(oversize.getResponse().getStatus()).isEqualTo(400);
+        
+        assertThat(noUploadInProgress()).isTrue();
+        mockMvc.perform(get("/api/recipes/" + testRecipe.getId() + "/images")
+                .header("Authorization", "Bearer " + authToken))
+                .andExpect(jsonPath("$", hasSize(0)));
+    }
+    
+    @Test
+    public void testUploadImage_OnlyByOwnerOfActiveRecipe() throws Exception {
+        String otherToken = loginAndGetToken("admin@example.com", "admin123");
+        MockMultipartFile file = new MockMultipartFile("file", "tart.png", "image/png", pngBytes(1_000));
+        
+        assertThat(uploadImage(testRecipe.getId(), otherToken, file).getResponse().getStatus()).isEqualTo(500);
+        assertThat(uploadImage("non-existent-id", authToken, file).getResponse().getStatus()).isEqualTo(500);
+        mockMvc.perform(multipart("/api/recipes/" + testRecipe.getId() + "/images").file(file))
+                .andExpect(status().isUnauthorized());
+    }
+    
     @Test
     public void testGetMyRecipes_Success() throws Exception {
         mockMvc.perform(get("/api/recipes/my-recipes")
@@ -0,0 +1,28 @@
+package com.recipeapp.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TextAnalyzerTest {
+    
+    @Test
+    public void testEnglishPluralsInYShareTheStemOfTheSingular() {
+        assertThat(TextAnalyzer.EN.term("cookie")).isEqualTo("cooki");
+        assertThat(TextAnalyzer.EN.term("cookies")).isEqualTo("cooki");
+        assertThat(TextAnalyzer.EN.term("berry")).isEqualTo("berri");
+        assertThat(TextAnalyzer.EN.term("Berries")).isEqualTo("berri");
+        assertThat(TextAnalyzer.EN.term("curried")).isEqualTo(TextAnalyzer.EN.term("curry"));
+    }
+    
+    @Test
+    public void testEnglishYAfterAVowelIsKept() {
+        assertThat(TextAnalyzer.EN.term("soy")).isEqualTo("soy");
+        assertThat(TextAnalyzer.EN.term("turkey")).isEqualTo("turkey");
+    }
+    
+    @Test
+    public void testEnglishStopWordsHaveNoTerm() {
+        assertThat(TextAnalyzer.EN.terms("The cookies and the berries")).containsExactly("cooki", "berri");
+    }
+}
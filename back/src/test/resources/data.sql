@@ -0,0 +1,2 @@
+-- The jsonb column comments used to live in, so that UserCommentsMigrator has something to migrate
+ALTER TABLE recipes ADD COLUMN user_comments TEXT;
\ No newline at end of file